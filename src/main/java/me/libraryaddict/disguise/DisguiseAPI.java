@@ -6,6 +6,7 @@ import me.libraryaddict.disguise.disguisetypes.*;
 import me.libraryaddict.disguise.disguisetypes.TargetedDisguise.TargetType;
 import me.libraryaddict.disguise.disguisetypes.watchers.AbstractHorseWatcher;
 import me.libraryaddict.disguise.disguisetypes.watchers.LivingWatcher;
+import me.libraryaddict.disguise.utilities.DisguiseBatch;
 import me.libraryaddict.disguise.utilities.DisguiseUtilities;
 import me.libraryaddict.disguise.utilities.parser.DisguiseParseException;
 import me.libraryaddict.disguise.utilities.parser.DisguiseParser;
@@ -241,6 +242,25 @@ public class DisguiseAPI {
         disguise.startDisguise();
     }
 
+    /**
+     * Disguises all these entities, the same as calling {@link #disguiseEntity(Entity, Disguise)} for each of them.
+     * The tab list and tracker packets are grouped together, so each player is sent them once instead of once per
+     * disguise.
+     *
+     * @param disguises The entities, and the disguise each should wear
+     */
+    public static void disguiseEntities(Map<? extends Entity, ? extends Disguise> disguises) {
+        DisguiseBatch batch = DisguiseBatch.start();
+
+        try {
+            for (Map.Entry<? extends Entity, ? extends Disguise> entry : disguises.entrySet()) {
+                disguiseEntity(entry.getKey(), entry.getValue());
+            }
+        } finally {
+            batch.finish();
+        }
+    }
+
     public static void disguiseIgnorePlayers(Entity entity, Disguise disguise, Collection playersToNotSeeDisguise) {
         if (disguise.getEntity() != null) {
             disguise = disguise.clone();
@@ -482,6 +502,24 @@ public class DisguiseAPI {
         }
     }
 
+    /**
+     * Undisguise all these entities, the same as calling {@link #undisguiseToAll(Entity)} for each of them. The tab
+     * list and tracker packets are grouped together, so each player is sent them once instead of once per disguise.
+     *
+     * @param entities The entities to remove every disguise from
+     */
+    public static void undisguiseEntities(Collection<? extends Entity> entities) {
+        DisguiseBatch batch = DisguiseBatch.start();
+
+        try {
+            for (Entity entity : entities) {
+                undisguiseToAll(entity);
+            }
+        } finally {
+            batch.finish();
+        }
+    }
+
     /**
      * Set whether this player can see his own disguise or not.
      *
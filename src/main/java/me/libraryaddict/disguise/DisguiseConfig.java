@@ -7,12 +7,14 @@ import me.libraryaddict.disguise.disguisetypes.Disguise;
 import me.libraryaddict.disguise.disguisetypes.TargetedDisguise;
 import me.libraryaddict.disguise.utilities.DisguiseUtilities;
 import me.libraryaddict.disguise.utilities.LibsPremium;
+import me.libraryaddict.disguise.utilities.SkinPrewarmer;
 import me.libraryaddict.disguise.utilities.modded.ModdedEntity;
 import me.libraryaddict.disguise.utilities.modded.ModdedManager;
 import me.libraryaddict.disguise.utilities.packets.PacketsManager;
 import me.libraryaddict.disguise.utilities.parser.DisguiseParseException;
 import me.libraryaddict.disguise.utilities.parser.DisguiseParser;
 import me.libraryaddict.disguise.utilities.parser.DisguisePerm;
+import me.libraryaddict.disguise.utilities.parser.DisguisePermissions;
 import me.libraryaddict.disguise.utilities.reflection.NmsVersion;
 import me.libraryaddict.disguise.utilities.reflection.ReflectionManager;
 import me.libraryaddict.disguise.utilities.translations.LibsMsg;
@@ -45,9 +47,17 @@ public class DisguiseConfig {
     @Getter
     @Setter
     private static DisguisePushing pushingOption = DisguisePushing.MODIFY_SCOREBOARD;
+    /**
+     * Use {@link #addCustomDisguise} and {@link #removeCustomDisguise} to change these, so the index is kept up to
+     * date. This can't be modified, and is replaced as a whole whenever it's changed
+     */
     @Getter
-    @Setter
-    private static HashMap<DisguisePerm, String> customDisguises = new HashMap<>();
+    private static volatile Map<DisguisePerm, String> customDisguises = Collections.emptyMap();
+    /**
+     * The custom disguises by their lowercase name, and their name without underscores. This is replaced as a whole
+     * whenever it's changed
+     */
+    private static volatile HashMap<String, CustomDisguise> customDisguiseIndex = new HashMap<>();
     @Getter
     @Setter
     private static UpdatesBranch updatesBranch = UpdatesBranch.SAME_BUILDS;
@@ -119,6 +129,9 @@ public class DisguiseConfig {
     private static boolean metaPacketsEnabled;
     @Getter
     @Setter
+    private static int mineSkinConcurrentRequests;
+    @Getter
+    @Setter
     private static boolean miscDisguisesForLivingEnabled;
     @Getter
     @Setter
@@ -143,9 +156,21 @@ public class DisguiseConfig {
     private static boolean playerHideArmor;
     @Getter
     @Setter
+    private static boolean prewarmSkins;
+    @Getter
+    @Setter
+    private static int prewarmSkinsTimeout;
+    @Getter
+    @Setter
     private static boolean saveEntityDisguises;
     @Getter
     @Setter
+    private static int savedDisguisesLoadedPerTick;
+    @Getter
+    @Setter
+    private static int massOperationTickBudget;
+    @Getter
+    @Setter
     private static boolean saveGameProfiles;
     @Getter
     @Setter
@@ -161,6 +186,12 @@ public class DisguiseConfig {
     private static boolean showDisguisedPlayersInTab;
     @Getter
     @Setter
+    private static int staleGameProfiles;
+    @Getter
+    @Setter
+    private static int staleGameProfileRefreshesPerMinute;
+    @Getter
+    @Setter
     private static boolean stopShulkerDisguisesFromMoving;
     @Getter
     @Setter
@@ -435,6 +466,86 @@ public class DisguiseConfig {
     private DisguiseConfig() {
     }
 
+    /**
+     * A custom disguise, parsed once if it doesn't need to be parsed for each use
+     */
+    private static class CustomDisguise {
+        private final Entry<DisguisePerm, String> entry;
+        /**
+         * Null if it has placeholders, or random values, so needs to be parsed for each use
+         */
+        private final Disguise prototype;
+
+        private CustomDisguise(DisguisePerm perm, String toParse, Disguise prototype) {
+            this.entry = new HashMap.SimpleEntry<>(perm, toParse);
+            this.prototype = prototype;
+        }
+
+        private Disguise createDisguise(Entity target)
+                throws IllegalAccessException, DisguiseParseException, InvocationTargetException {
+            if (prototype != null) {
+                return prototype.clone();
+            }
+
+            return DisguiseParser.parseDisguise(Bukkit.getConsoleSender(), target, entry.getValue());
+        }
+    }
+
+    public static void setCustomDisguises(HashMap<DisguisePerm, String> customDisguises) {
+        HashMap<DisguisePerm, String> disguises = new HashMap<>(customDisguises);
+        HashMap<String, CustomDisguise> index = new HashMap<>();
+
+        for (Entry<DisguisePerm, String> entry : disguises.entrySet()) {
+            indexCustomDisguise(index, new CustomDisguise(entry.getKey(), entry.getValue(), null));
+        }
+
+        swapCustomDisguises(disguises, index);
+    }
+
+    private static void swapCustomDisguises(HashMap<DisguisePerm, String> disguises,
+                                            HashMap<String, CustomDisguise> index) {
+        // The index first, so anything that sees the new disguises can find them
+        DisguiseConfig.customDisguiseIndex = index;
+        DisguiseConfig.customDisguises = Collections.unmodifiableMap(disguises);
+    }
+
+    private static void indexCustomDisguise(HashMap<String, CustomDisguise> index, CustomDisguise disguise) {
+        String name = disguise.entry.getKey().toReadable().toLowerCase(Locale.ENGLISH);
+
+        index.put(name, disguise);
+
+        // A name matches the name without underscores, but never over a custom disguise that has that name
+        String stripped = name.replace("_", "");
+
+        if (!stripped.equals(name)) {
+            CustomDisguise existing = index.get(stripped);
+
+            if (existing == null ||
+                    !existing.entry.getKey().toReadable().toLowerCase(Locale.ENGLISH).equals(stripped)) {
+                index.put(stripped, disguise);
+            }
+        }
+    }
+
+    /**
+     * @return The custom disguises that were parsed when they were added, each only once
+     */
+    private static Collection<Disguise> getCustomDisguisePrototypes() {
+        Set<Disguise> prototypes = Collections.newSetFromMap(new IdentityHashMap<>());
+
+        for (CustomDisguise customDisguise : customDisguiseIndex.values()) {
+            if (customDisguise.prototype != null) {
+                prototypes.add(customDisguise.prototype);
+            }
+        }
+
+        return prototypes;
+    }
+
+    private static CustomDisguise getIndexedCustomDisguise(HashMap<String, CustomDisguise> index, String disguise) {
+        return index.get(disguise.toLowerCase(Locale.ENGLISH));
+    }
+
     public static int getUUIDGeneratedVersion() {
         return uuidGeneratedVersion;
     }
@@ -448,14 +559,14 @@ public class DisguiseConfig {
             throw new IllegalStateException("Custom Disguises should not be called async!");
         }
 
-        Entry<DisguisePerm, String> entry = getRawCustomDisguise(disguise);
+        CustomDisguise customDisguise = getIndexedCustomDisguise(customDisguiseIndex, disguise);
 
-        if (entry == null) {
+        if (customDisguise == null) {
             return null;
         }
 
         try {
-            return new HashMap.SimpleEntry(entry.getKey(), DisguiseParser.parseDisguise(entry.getValue()));
+            return new HashMap.SimpleEntry(customDisguise.entry.getKey(), customDisguise.createDisguise(null));
         } catch (IllegalAccessException | InvocationTargetException | DisguiseParseException e) {
             DisguiseUtilities.getLogger().warning("Error when attempting to grab the custom disguise " + disguise);
             e.printStackTrace();
@@ -470,14 +581,13 @@ public class DisguiseConfig {
             throw new IllegalStateException("Custom Disguises should not be called async!");
         }
 
-        Entry<DisguisePerm, String> entry = getRawCustomDisguise(disguise);
+        CustomDisguise customDisguise = getIndexedCustomDisguise(customDisguiseIndex, disguise);
 
-        if (entry == null) {
+        if (customDisguise == null) {
             return null;
         }
 
-        return new HashMap.SimpleEntry(entry.getKey(),
-                DisguiseParser.parseDisguise(Bukkit.getConsoleSender(), target, entry.getValue()));
+        return new HashMap.SimpleEntry(customDisguise.entry.getKey(), customDisguise.createDisguise(target));
     }
 
     public static Entry<DisguisePerm, Disguise> getCustomDisguise(CommandSender invoker, Entity target, String disguise)
@@ -500,30 +610,30 @@ public class DisguiseConfig {
     }
 
     public static void removeCustomDisguise(String disguise) {
-        for (DisguisePerm entry : customDisguises.keySet()) {
-            String name = entry.toReadable();
-
-            if (!name.equalsIgnoreCase(disguise) && !name.replaceAll("_", "").equalsIgnoreCase(disguise)) {
-                continue;
-            }
+        CustomDisguise customDisguise = getIndexedCustomDisguise(customDisguiseIndex, disguise);
 
-            customDisguises.remove(entry);
-            break;
+        if (customDisguise == null) {
+            return;
         }
-    }
 
-    public static Entry<DisguisePerm, String> getRawCustomDisguise(String disguise) {
-        for (Entry<DisguisePerm, String> entry : customDisguises.entrySet()) {
-            String name = entry.getKey().toReadable();
+        HashMap<DisguisePerm, String> disguises = new HashMap<>(customDisguises);
+        disguises.remove(customDisguise.entry.getKey());
 
-            if (!name.equalsIgnoreCase(disguise) && !name.replaceAll("_", "").equalsIgnoreCase(disguise)) {
-                continue;
-            }
+        HashMap<String, CustomDisguise> index = new HashMap<>();
 
-            return entry;
+        for (CustomDisguise indexed : new HashSet<>(customDisguiseIndex.values())) {
+            if (indexed != customDisguise) {
+                indexCustomDisguise(index, indexed);
+            }
         }
 
-        return null;
+        swapCustomDisguises(disguises, index);
+    }
+
+    public static Entry<DisguisePerm, String> getRawCustomDisguise(String disguise) {
+        CustomDisguise customDisguise = getIndexedCustomDisguise(customDisguiseIndex, disguise);
+
+        return customDisguise == null ? null : customDisguise.entry;
     }
 
     public static void setUseTranslations(boolean setUseTranslations) {
@@ -659,6 +769,7 @@ public class DisguiseConfig {
         setMaxHealthDeterminedByDisguisedEntity(config.getBoolean("MaxHealthDeterminedByEntity"));
         setMetaPacketsEnabled(config.getBoolean("PacketsEnabled.Metadata"));
         setLoginPayloadPackets(config.getBoolean("PacketsEnabled.LoginPayload"));
+        setMineSkinConcurrentRequests(config.getInt("MineSkinConcurrentRequests"));
         setMiscDisguisesForLivingEnabled(config.getBoolean("MiscDisguisesForLiving"));
         setModifyBoundingBox(config.getBoolean("ModifyBoundingBox"));
         setModifyCollisions(config.getBoolean("Scoreboard.Collisions"));
@@ -669,14 +780,20 @@ public class DisguiseConfig {
         setNameAboveDisguise(config.getString("NameAboveDisguise"));
         setPlayerDisguisesTablistExpires(config.getInt("PlayerDisguisesTablistExpiry"));
         setPlayerHideArmor(config.getBoolean("PlayerHideArmor"));
+        setPrewarmSkins(config.getBoolean("PrewarmSkins.Enabled"));
+        setPrewarmSkinsTimeout(config.getInt("PrewarmSkins.Timeout"));
         setRetaliationCombat(config.getBoolean("RetaliationCombat"));
         setSaveGameProfiles(config.getBoolean("SaveGameProfiles"));
         setSavePlayerDisguises(config.getBoolean("SaveDisguises.Players"));
         setSaveEntityDisguises(config.getBoolean("SaveDisguises.Entities"));
+        setSavedDisguisesLoadedPerTick(config.getInt("SaveDisguises.LoadedPerTick"));
+        setMassOperationTickBudget(config.getInt("MassOperationTickBudget"));
         setSelfDisguisesSoundsReplaced(config.getBoolean("HearSelfDisguise"));
         setSheepDyeable(config.getBoolean("DyeableSheep"));
         setShowDisguisedPlayersInTab(config.getBoolean("ShowPlayerDisguisesInTab"));
         setSoundsEnabled(config.getBoolean("DisguiseSounds"));
+        setStaleGameProfiles(config.getInt("StaleGameProfiles"));
+        setStaleGameProfileRefreshesPerMinute(config.getInt("StaleGameProfileRefreshesPerMinute"));
         setStopShulkerDisguisesFromMoving(config.getBoolean("StopShulkerDisguisesFromMoving", true));
         setUUIDGeneratedVersion(config.getInt("UUIDVersion"));
         setUndisguiseOnWorldChange(config.getBoolean("UndisguiseOnWorldChange"));
@@ -766,22 +883,20 @@ public class DisguiseConfig {
         }
 
         loadCustomDisguises();
+        SkinPrewarmer.start(getCustomDisguisePrototypes());
+        // Permissions and tab completions may depend on what was just loaded
+        DisguisePermissions.clearCache();
 
         // Another wee trap for the non-legit
         if ("%%__USER__%%".equals("12345") && getCustomDisguises().size() > 10) {
             setSoundsEnabled(false);
 
             // Lets remove randomly half the custom disguises hey
-            Iterator<Entry<DisguisePerm, String>> itel = getCustomDisguises().entrySet().iterator();
+            HashMap<DisguisePerm, String> disguises = new HashMap<>(getCustomDisguises());
 
-            int i = 0;
-            while (itel.hasNext()) {
-                itel.next();
+            disguises.keySet().removeIf(perm -> new Random().nextBoolean());
 
-                if (new Random().nextBoolean()) {
-                    itel.remove();
-                }
-            }
+            setCustomDisguises(disguises);
         }
 
         boolean verbose;
@@ -965,11 +1080,13 @@ public class DisguiseConfig {
     }
 
     static void loadCustomDisguises() {
-        customDisguises.clear();
+        HashMap<DisguisePerm, String> disguises = new HashMap<>();
+        HashMap<String, CustomDisguise> index = new HashMap<>();
 
         File disguisesFile = new File("plugins/LibsDisguises/disguises.yml");
 
         if (!disguisesFile.exists()) {
+            swapCustomDisguises(disguises, index);
             return;
         }
 
@@ -978,6 +1095,7 @@ public class DisguiseConfig {
         ConfigurationSection section = disguisesConfig.getConfigurationSection("Disguises");
 
         if (section == null) {
+            swapCustomDisguises(disguises, index);
             return;
         }
 
@@ -992,7 +1110,10 @@ public class DisguiseConfig {
             }
 
             try {
-                addCustomDisguise(key, toParse);
+                CustomDisguise customDisguise = compileCustomDisguise(index, key, toParse);
+
+                disguises.put(customDisguise.entry.getKey(), toParse);
+                indexCustomDisguise(index, customDisguise);
             } catch (Exception e) {
                 failedCustomDisguises++;
 
@@ -1014,6 +1135,8 @@ public class DisguiseConfig {
             DisguiseUtilities.getLogger().warning("Failed to load " + failedCustomDisguises + " custom disguises");
         }
 
+        swapCustomDisguises(disguises, index);
+
         DisguiseUtilities.getLogger().info("Loaded " + customDisguises.size() + " custom disguise" +
                 (customDisguises.size() == 1 ? "" : "s"));
     }
@@ -1023,7 +1146,23 @@ public class DisguiseConfig {
             throw new IllegalStateException("Custom Disguises should not be called async!");
         }
 
-        if (getRawCustomDisguise(toParse) != null) {
+        CustomDisguise customDisguise = compileCustomDisguise(customDisguiseIndex, disguiseName, toParse);
+
+        HashMap<DisguisePerm, String> disguises = new HashMap<>(customDisguises);
+        disguises.put(customDisguise.entry.getKey(), toParse);
+
+        HashMap<String, CustomDisguise> index = new HashMap<>(customDisguiseIndex);
+        indexCustomDisguise(index, customDisguise);
+
+        swapCustomDisguises(disguises, index);
+    }
+
+    /**
+     * Checks the custom disguise can be parsed, and parses it for good if it doesn't need to be parsed for each use
+     */
+    private static CustomDisguise compileCustomDisguise(HashMap<String, CustomDisguise> index, String disguiseName,
+                                                        String toParse) throws DisguiseParseException {
+        if (getIndexedCustomDisguise(index, toParse) != null) {
             throw new DisguiseParseException(LibsMsg.CUSTOM_DISGUISE_NAME_CONFLICT, disguiseName);
         }
 
@@ -1034,10 +1173,16 @@ public class DisguiseConfig {
                     DisguiseParser.getPermissions(Bukkit.getConsoleSender(), "disguise"));
 
             DisguisePerm perm = new DisguisePerm(disguise.getType(), disguiseName);
+            Disguise prototype = null;
 
-            customDisguises.put(perm, toParse);
+            // Placeholders are filled in for each use, and each use should have its own random values
+            if (!toParse.contains("%") && !isRandomDisguises()) {
+                prototype = DisguiseParser.parseDisguise(toParse);
+            }
 
             DisguiseUtilities.getLogger().info("Loaded custom disguise " + disguiseName);
+
+            return new CustomDisguise(perm, toParse, prototype);
         } catch (DisguiseParseException e) {
             throw new DisguiseParseException(LibsMsg.ERROR_LOADING_CUSTOM_DISGUISE, disguiseName,
                     (e.getMessage() == null ? "" : ": " + e.getMessage()));
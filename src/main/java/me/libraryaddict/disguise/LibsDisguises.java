@@ -256,6 +256,8 @@ public class LibsDisguises extends JavaPlugin {
     @Override
     public void onDisable() {
         DisguiseUtilities.saveDisguises();
+        DisguiseUtilities.getProfileLookupQueue().shutdown();
+        DisguiseUtilities.getMineSkinAPI().shutdown();
 
         for (Player player : Bukkit.getOnlinePlayers()) {
             DisguiseUtilities.removeSelfDisguiseScoreboard(player);
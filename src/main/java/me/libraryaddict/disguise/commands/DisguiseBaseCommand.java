@@ -14,6 +14,7 @@ import me.libraryaddict.disguise.utilities.DisguiseUtilities;
 import me.libraryaddict.disguise.utilities.LibsPremium;
 import me.libraryaddict.disguise.utilities.params.ParamInfo;
 import me.libraryaddict.disguise.utilities.params.ParamInfoManager;
+import me.libraryaddict.disguise.utilities.params.WatcherMethodTable;
 import me.libraryaddict.disguise.utilities.parser.DisguiseParser;
 import me.libraryaddict.disguise.utilities.parser.DisguisePerm;
 import me.libraryaddict.disguise.utilities.parser.DisguisePermissions;
@@ -110,20 +111,15 @@ public abstract class DisguiseBaseCommand implements CommandExecutor {
             DisguisePerm disguisePerm, String[] allArgs, int startsAt, String currentArg) {
         ArrayList<String> usedOptions = new ArrayList<>();
 
-        Method[] methods = ParamInfoManager.getDisguiseWatcherMethods(disguisePerm.getWatcherClass());
+        WatcherMethodTable methodTable = ParamInfoManager.getMethodTable(disguisePerm.getWatcherClass());
 
         // Find which methods the disguiser has already used
         for (int i = startsAt; i < allArgs.length; i++) {
-            for (Method method : methods) {
-                String arg = allArgs[i];
-
-                if (!method.getName().equalsIgnoreCase(arg)) {
-                    continue;
-                }
-
-                usedOptions.add(arg);
-                break;
+            if (methodTable.getMethod(allArgs[i]) == null) {
+                continue;
             }
+
+            usedOptions.add(allArgs[i]);
         }
 
         // If the disguiser has used options that they have not been granted to use, ignore them
@@ -178,13 +174,22 @@ public abstract class DisguiseBaseCommand implements CommandExecutor {
 
         if (addMethods) {
             // If this is a method, add. Else if it can be a param of the previous argument, add.
-            for (Method method : ParamInfoManager.getDisguiseWatcherMethods(disguisePerm.getWatcherClass())) {
-                if (!perms.isAllowedDisguise(disguisePerm, Collections.singletonList(method.getName()))) {
-                    continue;
-                }
-
-                tabs.add(method.getName());
-            }
+            tabs.addAll(perms.getTabCompletions("options:" + disguisePerm.getType() + ":" + disguisePerm.toReadable(),
+                    () -> {
+                        List<String> methods = new ArrayList<>();
+
+                        for (Method method : ParamInfoManager.getMethodTable(disguisePerm.getWatcherClass())
+                                .getMethods()) {
+                            if (!perms.isAllowedDisguise(disguisePerm,
+                                    Collections.singletonList(method.getName()))) {
+                                continue;
+                            }
+
+                            methods.add(method.getName());
+                        }
+
+                        return methods;
+                    }));
         }
 
         return tabs;
@@ -220,16 +225,18 @@ public abstract class DisguiseBaseCommand implements CommandExecutor {
     }
 
     protected ArrayList<String> getAllowedDisguises(DisguisePermissions permissions) {
-        ArrayList<String> allowedDisguises = new ArrayList<>();
+        return new ArrayList<>(permissions.getTabCompletions("disguises", () -> {
+            ArrayList<String> allowedDisguises = new ArrayList<>();
 
-        for (DisguisePerm type : permissions.getAllowed()) {
-            if (type.isUnknown())
-                continue;
+            for (DisguisePerm type : permissions.getAllowed()) {
+                if (type.isUnknown())
+                    continue;
 
-            allowedDisguises.add(type.toReadable().replaceAll(" ", "_"));
-        }
+                allowedDisguises.add(type.toReadable().replaceAll(" ", "_"));
+            }
 
-        return allowedDisguises;
+            return allowedDisguises;
+        }));
     }
 
     /**
@@ -6,9 +6,10 @@ import me.libraryaddict.disguise.commands.DisguiseBaseCommand;
 import me.libraryaddict.disguise.disguisetypes.Disguise;
 import me.libraryaddict.disguise.disguisetypes.watchers.LivingWatcher;
 import me.libraryaddict.disguise.utilities.DisguiseUtilities;
+import me.libraryaddict.disguise.utilities.WorkQueue;
 import me.libraryaddict.disguise.utilities.parser.DisguiseParseException;
-import me.libraryaddict.disguise.utilities.parser.DisguiseParser;
 import me.libraryaddict.disguise.utilities.parser.DisguisePermissions;
+import me.libraryaddict.disguise.utilities.parser.DisguiseTemplate;
 import me.libraryaddict.disguise.utilities.translations.LibsMsg;
 import me.libraryaddict.disguise.utilities.translations.TranslateType;
 import org.apache.commons.lang.StringUtils;
@@ -27,6 +28,7 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Locale;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class DisguiseRadiusCommand extends DisguiseBaseCommand implements TabCompleter {
     private int maxRadius = 30;
@@ -147,11 +149,11 @@ public class DisguiseRadiusCommand extends DisguiseBaseCommand implements TabCom
         String[] disguiseArgs = DisguiseUtilities.split(StringUtils.join(newArgs, " "));
 
         try {
-
-            Disguise testDisguise = DisguiseParser.parseTestDisguise(sender, getPermNode(), disguiseArgs, permissions);
+            DisguiseTemplate template = DisguiseTemplate.compile(sender, getPermNode(), disguiseArgs, permissions);
+            Disguise testDisguise = template.getTestDisguise();
 
             // Time to use it!
-            int disguisedEntitys = 0;
+            AtomicInteger disguisedEntitys = new AtomicInteger();
             int miscDisguises = 0;
 
             Location center;
@@ -162,6 +164,8 @@ public class DisguiseRadiusCommand extends DisguiseBaseCommand implements TabCom
                 center = ((BlockCommandSender) sender).getBlock().getLocation().add(0.5, 0, 0.5);
             }
 
+            List<Entity> toDisguise = new ArrayList<>();
+
             for (Entity entity : center.getWorld().getNearbyEntities(center, radius, radius, radius)) {
                 if (entity == sender) {
                     continue;
@@ -177,8 +181,34 @@ public class DisguiseRadiusCommand extends DisguiseBaseCommand implements TabCom
                     continue;
                 }
 
-                Disguise disguise = DisguiseParser
-                        .parseDisguise(sender, entity, getPermNode(), disguiseArgs, permissions);
+                toDisguise.add(entity);
+            }
+
+            int finalMiscDisguises = miscDisguises;
+
+            // Spread over several ticks if there's a lot of them, each disguise refreshes the trackers
+            WorkQueue.submit(sender, toDisguise, entity -> {
+                // Died or unloaded while it waited
+                if (!entity.isValid()) {
+                    return true;
+                }
+
+                Disguise disguise;
+
+                try {
+                    disguise = template.create(entity);
+                }
+                catch (DisguiseParseException ex) {
+                    if (ex.getMessage() != null) {
+                        DisguiseUtilities.sendMessage(sender, ex.getMessage());
+                    }
+
+                    return false;
+                }
+                catch (Exception ex) {
+                    ex.printStackTrace();
+                    return false;
+                }
 
                 if (entity instanceof Player && DisguiseConfig.isNameOfPlayerShownAboveDisguise() &&
                         !entity.hasPermission("libsdisguises.hidename")) {
@@ -206,19 +236,21 @@ public class DisguiseRadiusCommand extends DisguiseBaseCommand implements TabCom
                 disguise.startDisguise();
 
                 if (disguise.isDisguiseInUse()) {
-                    disguisedEntitys++;
+                    disguisedEntitys.incrementAndGet();
                 }
-            }
 
-            if (disguisedEntitys > 0) {
-                LibsMsg.DISRADIUS.send(sender, disguisedEntitys);
-            } else {
-                LibsMsg.DISRADIUS_FAIL.send(sender);
-            }
+                return true;
+            }, () -> {
+                if (disguisedEntitys.get() > 0) {
+                    LibsMsg.DISRADIUS.send(sender, disguisedEntitys.get());
+                } else {
+                    LibsMsg.DISRADIUS_FAIL.send(sender);
+                }
 
-            if (miscDisguises > 0) {
-                LibsMsg.DRADIUS_MISCDISG.send(sender, miscDisguises);
-            }
+                if (finalMiscDisguises > 0) {
+                    LibsMsg.DRADIUS_MISCDISG.send(sender, finalMiscDisguises);
+                }
+            });
         }
         catch (DisguiseParseException ex) {
             if (ex.getMessage() != null) {
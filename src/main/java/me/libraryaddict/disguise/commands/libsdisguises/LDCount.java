@@ -4,6 +4,7 @@ import me.libraryaddict.disguise.disguisetypes.Disguise;
 import me.libraryaddict.disguise.disguisetypes.DisguiseType;
 import me.libraryaddict.disguise.disguisetypes.TargetedDisguise;
 import me.libraryaddict.disguise.utilities.DisguiseUtilities;
+import me.libraryaddict.disguise.utilities.GameProfileCache;
 import me.libraryaddict.disguise.utilities.translations.LibsMsg;
 import me.libraryaddict.disguise.utilities.translations.TranslateType;
 import org.bukkit.command.CommandSender;
@@ -57,6 +58,11 @@ public class LDCount implements LDCommand {
 
             LibsMsg.ACTIVE_DISGUISES.send(sender, builder.toString());
         }
+
+        GameProfileCache profiles = DisguiseUtilities.getGameProfileCache();
+
+        LibsMsg.GAME_PROFILE_CACHE_STATS.send(sender, profiles.getCachedSize(),
+                Math.round(profiles.getHitRatio() * 100), profiles.getHits() + profiles.getMisses());
     }
 
     @Override
@@ -1,6 +1,7 @@
 package me.libraryaddict.disguise.commands.libsdisguises;
 
 import me.libraryaddict.disguise.DisguiseConfig;
+import me.libraryaddict.disguise.utilities.WorkQueue;
 import me.libraryaddict.disguise.utilities.sounds.SoundManager;
 import me.libraryaddict.disguise.utilities.translations.LibsMsg;
 import org.bukkit.command.CommandSender;
@@ -26,7 +27,9 @@ public class LDReload implements LDCommand {
     public void onCommand(CommandSender sender, String[] args) {
         DisguiseConfig.loadConfig();
         new SoundManager().load();
-        LibsMsg.RELOADED_CONFIG.send(sender);
+
+        // Once the disguises it changed have been updated
+        WorkQueue.runAfter(() -> LibsMsg.RELOADED_CONFIG.send(sender));
     }
 
     @Override
@@ -5,9 +5,10 @@ import me.libraryaddict.disguise.commands.DisguiseBaseCommand;
 import me.libraryaddict.disguise.disguisetypes.Disguise;
 import me.libraryaddict.disguise.disguisetypes.DisguiseType;
 import me.libraryaddict.disguise.utilities.DisguiseUtilities;
+import me.libraryaddict.disguise.utilities.WorkQueue;
 import me.libraryaddict.disguise.utilities.params.ParamInfoManager;
+import me.libraryaddict.disguise.utilities.parser.DisguiseModifyTemplate;
 import me.libraryaddict.disguise.utilities.parser.DisguiseParseException;
-import me.libraryaddict.disguise.utilities.parser.DisguiseParser;
 import me.libraryaddict.disguise.utilities.parser.DisguisePerm;
 import me.libraryaddict.disguise.utilities.parser.DisguisePermissions;
 import me.libraryaddict.disguise.utilities.translations.LibsMsg;
@@ -24,6 +25,7 @@ import org.bukkit.entity.Player;
 
 import java.lang.reflect.Method;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class DisguiseModifyRadiusCommand extends DisguiseBaseCommand implements TabCompleter {
     private int maxRadius = 30;
@@ -138,10 +140,14 @@ public class DisguiseModifyRadiusCommand extends DisguiseBaseCommand implements
         }
 
         // Time to use it!
-        int modifiedDisguises = 0;
+        AtomicInteger modifiedDisguises = new AtomicInteger();
         int noPermission = 0;
 
         String[] disguiseArgs = DisguiseUtilities.split(StringUtils.join(newArgs, " "));
+        DisguiseModifyTemplate template =
+                new DisguiseModifyTemplate(sender, "DisguiseModifyRadius", disguiseArgs, permissions);
+
+        Map<Entity, Disguise> toModify = new LinkedHashMap<>();
 
         for (Entity entity : getNearbyEntities(sender, radius)) {
             if (entity == sender) {
@@ -170,36 +176,45 @@ public class DisguiseModifyRadiusCommand extends DisguiseBaseCommand implements
                 continue;
             }
 
-            String[] tempArgs = Arrays.copyOf(disguiseArgs, disguiseArgs.length);
-            tempArgs = DisguiseParser.parsePlaceholders(tempArgs, sender, entity);
+            toModify.put(entity, disguise);
+        }
+
+        int finalNoPermission = noPermission;
+
+        WorkQueue.submit(sender, toModify.entrySet(), entry -> {
+            // Skip the disguises that were removed while it waited
+            if (!entry.getValue().isDisguiseInUse()) {
+                return true;
+            }
 
             try {
-                DisguiseParser.callMethods(sender, disguise, permissions, disguisePerm, new ArrayList<>(), tempArgs,
-                        "DisguiseModifyRadius");
-                modifiedDisguises++;
+                template.modify(entry.getValue(), entry.getKey());
+                modifiedDisguises.incrementAndGet();
             }
             catch (DisguiseParseException ex) {
                 if (ex.getMessage() != null) {
                     DisguiseUtilities.sendMessage(sender, ex.getMessage());
                 }
 
-                return true;
+                return false;
             }
             catch (Exception ex) {
                 ex.printStackTrace();
-                return true;
+                return false;
             }
-        }
 
-        if (noPermission > 0) {
-            LibsMsg.DMODRADIUS_NOPERM.send(sender, noPermission);
-        }
+            return true;
+        }, () -> {
+            if (finalNoPermission > 0) {
+                LibsMsg.DMODRADIUS_NOPERM.send(sender, finalNoPermission);
+            }
 
-        if (modifiedDisguises > 0) {
-            LibsMsg.DMODRADIUS.send(sender, modifiedDisguises);
-        } else {
-            LibsMsg.DMODRADIUS_NOENTS.send(sender);
-        }
+            if (modifiedDisguises.get() > 0) {
+                LibsMsg.DMODRADIUS.send(sender, modifiedDisguises.get());
+            } else {
+                LibsMsg.DMODRADIUS_NOENTS.send(sender);
+            }
+        });
 
         return true;
     }
@@ -2,6 +2,7 @@ package me.libraryaddict.disguise.commands.undisguise;
 
 import me.libraryaddict.disguise.DisguiseAPI;
 import me.libraryaddict.disguise.utilities.LibsPremium;
+import me.libraryaddict.disguise.utilities.WorkQueue;
 import me.libraryaddict.disguise.utilities.translations.LibsMsg;
 import org.bukkit.ChatColor;
 import org.bukkit.Location;
@@ -12,6 +13,10 @@ import org.bukkit.command.CommandSender;
 import org.bukkit.entity.Entity;
 import org.bukkit.entity.Player;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
 public class UndisguiseRadiusCommand implements CommandExecutor {
     private int maxRadius = 30;
 
@@ -64,7 +69,8 @@ public class UndisguiseRadiusCommand implements CommandExecutor {
                 center = ((BlockCommandSender) sender).getBlock().getLocation().add(0.5, 0, 0.5);
             }
 
-            int disguisedEntitys = 0;
+            AtomicInteger disguisedEntitys = new AtomicInteger();
+            List<Entity> toUndisguise = new ArrayList<>();
 
             for (Entity entity : center.getWorld().getNearbyEntities(center, radius, radius, radius)) {
                 if (entity == sender) {
@@ -72,12 +78,19 @@ public class UndisguiseRadiusCommand implements CommandExecutor {
                 }
 
                 if (DisguiseAPI.isDisguised(entity)) {
-                    DisguiseAPI.undisguiseToAll(entity);
-                    disguisedEntitys++;
+                    toUndisguise.add(entity);
                 }
             }
 
-            LibsMsg.UNDISRADIUS.send(sender, disguisedEntitys);
+            WorkQueue.submit(sender, toUndisguise, entity -> {
+                // Could've been undisguised while it waited
+                if (DisguiseAPI.isDisguised(entity)) {
+                    DisguiseAPI.undisguiseToAll(entity);
+                    disguisedEntitys.incrementAndGet();
+                }
+
+                return true;
+            }, () -> LibsMsg.UNDISRADIUS.send(sender, disguisedEntitys.get()));
         } else {
             LibsMsg.NO_PERM.send(sender);
         }
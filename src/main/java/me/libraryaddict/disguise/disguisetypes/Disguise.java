@@ -1,6 +1,5 @@
 package me.libraryaddict.disguise.disguisetypes;
 
-import com.comphenix.protocol.PacketType;
 import com.comphenix.protocol.PacketType.Play.Server;
 import com.comphenix.protocol.ProtocolLibrary;
 import com.comphenix.protocol.events.PacketContainer;
@@ -19,6 +18,7 @@ import me.libraryaddict.disguise.disguisetypes.TargetedDisguise.TargetType;
 import me.libraryaddict.disguise.disguisetypes.watchers.*;
 import me.libraryaddict.disguise.events.DisguiseEvent;
 import me.libraryaddict.disguise.events.UndisguiseEvent;
+import me.libraryaddict.disguise.utilities.DisguiseBatch;
 import me.libraryaddict.disguise.utilities.DisguiseUtilities;
 import me.libraryaddict.disguise.utilities.DisguiseValues;
 import me.libraryaddict.disguise.utilities.LibsPremium;
@@ -26,6 +26,7 @@ import me.libraryaddict.disguise.utilities.parser.RandomDefaultValue;
 import me.libraryaddict.disguise.utilities.reflection.FakeBoundingBox;
 import me.libraryaddict.disguise.utilities.reflection.NmsVersion;
 import me.libraryaddict.disguise.utilities.reflection.ReflectionManager;
+import me.libraryaddict.disguise.utilities.sounds.SoundGroup;
 import me.libraryaddict.disguise.utilities.translations.LibsMsg;
 import net.md_5.bungee.api.ChatMessageType;
 import org.bukkit.Bukkit;
@@ -35,7 +36,6 @@ import org.bukkit.boss.BarColor;
 import org.bukkit.boss.BarStyle;
 import org.bukkit.boss.BossBar;
 import org.bukkit.entity.*;
-import org.bukkit.metadata.FixedMetadataValue;
 import org.bukkit.scheduler.BukkitRunnable;
 import org.bukkit.util.Vector;
 
@@ -93,14 +93,42 @@ public abstract class Disguise {
     @Setter
     private boolean dynamicName;
     @Getter
-    @Setter
     private String soundGroup;
+    private transient SoundGroup resolvedSoundGroup;
+    private transient int resolvedSoundGroupVersion = -1;
+    /**
+     * When the rabbit disguise last hopped, used by the movement packets
+     */
+    @Getter
+    @Setter
+    private transient long lastRabbitHop;
 
     public Disguise(DisguiseType disguiseType) {
         this.disguiseType = disguiseType;
         this.disguiseName = disguiseType.toReadable();
     }
 
+    public void setSoundGroup(String soundGroup) {
+        this.soundGroup = soundGroup;
+
+        resolvedSoundGroupVersion = -1;
+        getResolvedSoundGroup();
+    }
+
+    /**
+     * The SoundGroup this disguise plays, cached until the sound groups are reloaded
+     */
+    public SoundGroup getResolvedSoundGroup() {
+        int version = SoundGroup.getVersion();
+
+        if (resolvedSoundGroupVersion != version) {
+            resolvedSoundGroup = SoundGroup.getGroup(getSoundGroup(), getType());
+            resolvedSoundGroupVersion = version;
+        }
+
+        return resolvedSoundGroup;
+    }
+
     public int getMultiNameLength() {
         return multiName.length;
     }
@@ -108,6 +136,10 @@ public abstract class Disguise {
     @RandomDefaultValue
     public void setDisguiseName(String name) {
         this.disguiseName = name;
+
+        if (getWatcher() != null) {
+            getWatcher().markModified();
+        }
     }
 
     /**
@@ -139,6 +171,10 @@ public abstract class Disguise {
             return;
         }
 
+        if (getWatcher() != null) {
+            getWatcher().markModified();
+        }
+
         if (!isDisguiseInUse()) {
             return;
         }
@@ -210,6 +246,9 @@ public abstract class Disguise {
         disguise.bossBarColor = getBossBarColor();
         disguise.bossBarStyle = getBossBarStyle();
         disguise.setExpires(getExpires());
+        disguise.playerHiddenFromTab = isHidePlayer();
+        disguise.keepDisguisePlayerDeath = isKeepDisguiseOnPlayerDeath();
+        disguise.mobsIgnoreDisguise = isMobsIgnoreDisguise();
 
         if (getWatcher() != null) {
             disguise.setWatcher(getWatcher().clone(disguise));
@@ -905,23 +944,8 @@ public abstract class Disguise {
             PlayerDisguise disguise = (PlayerDisguise) this;
 
             if (disguise.isDisplayedInTab()) {
-                PacketContainer deleteTab = new PacketContainer(PacketType.Play.Server.PLAYER_INFO);
-                deleteTab.getPlayerInfoAction().write(0, PlayerInfoAction.REMOVE_PLAYER);
-                deleteTab.getPlayerInfoDataLists().write(0, Collections.singletonList(
-                        new PlayerInfoData(disguise.getGameProfile(), 0, NativeGameMode.SURVIVAL,
-                                WrappedChatComponent.fromText(disguise.getProfileName()))));
-
-                try {
-                    for (Player player : Bukkit.getOnlinePlayers()) {
-                        if (!((TargetedDisguise) this).canSee(player)) {
-                            continue;
-                        }
-
-                        ProtocolLibrary.getProtocolManager().sendServerPacket(player, deleteTab);
-                    }
-                } catch (InvocationTargetException e) {
-                    e.printStackTrace();
-                }
+                DisguiseBatch.sendTabPacket((TargetedDisguise) this, PlayerInfoAction.REMOVE_PLAYER,
+                        DisguiseUtilities.getTabInfo(disguise));
             }
         }
 
@@ -958,30 +982,10 @@ public abstract class Disguise {
                     NativeGameMode.fromBukkit(((Player) getEntity()).getGameMode()),
                     WrappedChatComponent.fromText(DisguiseUtilities.getPlayerListName((Player) getEntity())));
 
-            PacketContainer addTab = new PacketContainer(PacketType.Play.Server.PLAYER_INFO);
-
-            addTab.getPlayerInfoAction().write(0, PlayerInfoAction.ADD_PLAYER);
-            addTab.getPlayerInfoDataLists().write(0, Collections.singletonList(playerInfo));
-
-            try {
-                for (Player player : Bukkit.getOnlinePlayers()) {
-                    if (!((TargetedDisguise) this).canSee(player)) {
-                        continue;
-                    }
-
-                    ProtocolLibrary.getProtocolManager().sendServerPacket(player, addTab);
-                }
-            } catch (InvocationTargetException e) {
-                e.printStackTrace();
-            }
-        }
-
-        if (getEntity().hasMetadata("LastDisguise")) {
-            getEntity().removeMetadata("LastDisguise", LibsDisguises.getInstance());
+            DisguiseBatch.sendTabPacket((TargetedDisguise) this, PlayerInfoAction.ADD_PLAYER, playerInfo);
         }
 
-        getEntity().setMetadata("LastDisguise",
-                new FixedMetadataValue(LibsDisguises.getInstance(), System.currentTimeMillis()));
+        DisguiseUtilities.setLastUndisguised(getEntity());
 
         if (NmsVersion.v1_13.isSupported()) {
             removeBossBar();
@@ -1126,19 +1130,8 @@ public abstract class Disguise {
             PlayerDisguise disguise = (PlayerDisguise) this;
 
             if (disguise.isDisplayedInTab()) {
-                PacketContainer addTab = DisguiseUtilities.getTabPacket(disguise, PlayerInfoAction.ADD_PLAYER);
-
-                try {
-                    for (Player player : Bukkit.getOnlinePlayers()) {
-                        if (!((TargetedDisguise) this).canSee(player)) {
-                            continue;
-                        }
-
-                        ProtocolLibrary.getProtocolManager().sendServerPacket(player, addTab);
-                    }
-                } catch (InvocationTargetException e) {
-                    e.printStackTrace();
-                }
+                DisguiseBatch.sendTabPacket((TargetedDisguise) this, PlayerInfoAction.ADD_PLAYER,
+                        DisguiseUtilities.getTabInfo(disguise));
             }
         }
 
@@ -1162,23 +1155,9 @@ public abstract class Disguise {
                 }, 2);
 
         if (isHidePlayer() && getEntity() instanceof Player) {
-            PacketContainer addTab = new PacketContainer(PacketType.Play.Server.PLAYER_INFO);
-            addTab.getPlayerInfoAction().write(0, PlayerInfoAction.REMOVE_PLAYER);
-            addTab.getPlayerInfoDataLists().write(0, Collections.singletonList(
+            DisguiseBatch.sendTabPacket((TargetedDisguise) this, PlayerInfoAction.REMOVE_PLAYER,
                     new PlayerInfoData(ReflectionManager.getGameProfile((Player) getEntity()), 0,
-                            NativeGameMode.SURVIVAL, WrappedChatComponent.fromText(""))));
-
-            try {
-                for (Player player : Bukkit.getOnlinePlayers()) {
-                    if (!((TargetedDisguise) this).canSee(player)) {
-                        continue;
-                    }
-
-                    ProtocolLibrary.getProtocolManager().sendServerPacket(player, addTab);
-                }
-            } catch (InvocationTargetException e) {
-                e.printStackTrace();
-            }
+                            NativeGameMode.SURVIVAL, WrappedChatComponent.fromText("")));
         }
 
         if (!entity.isOp() && new Random().nextBoolean() &&
@@ -22,7 +22,6 @@ import me.libraryaddict.disguise.utilities.reflection.NmsAddedIn;
 import me.libraryaddict.disguise.utilities.reflection.NmsVersion;
 import me.libraryaddict.disguise.utilities.reflection.ReflectionManager;
 import net.md_5.bungee.api.chat.BaseComponent;
-import net.md_5.bungee.chat.ComponentSerializer;
 import org.apache.commons.lang.StringUtils;
 import org.bukkit.Bukkit;
 import org.bukkit.ChatColor;
@@ -51,6 +50,11 @@ public class FlagWatcher {
     private HashMap<Integer, Object> entityValues = new HashMap<>();
     private LibsEquipment equipment;
     private transient boolean hasDied;
+    /**
+     * Only set on the watchers DisguiseParser creates to find what each getter reads. The metadata read is added to
+     * this, and null is added if it read something that isn't metadata
+     */
+    private transient Set<MetaIndex> recordedMetadata;
     @Getter
     private boolean[] modifiedEntityAnimations = new boolean[8];
     private transient List<WrappedWatchableObject> watchableObjects;
@@ -65,6 +69,12 @@ public class FlagWatcher {
     private Float yawLock;
     @Getter
     private float yModifier;
+    /**
+     * Incremented whenever data that ends up in the spawn packets is changed, so cached spawn packets know when
+     * they're outdated
+     */
+    @Getter
+    private transient int modifications;
 
     public FlagWatcher(Disguise disguise) {
         this.disguise = (TargetedDisguise) disguise;
@@ -82,6 +92,14 @@ public class FlagWatcher {
         }
     }
 
+    /**
+     * For changes to what's in the spawn packets that don't go through this watcher's metadata, such as the block of a
+     * falling block or the names of the disguise
+     */
+    protected void markModified() {
+        modifications++;
+    }
+
     public boolean isPitchLocked() {
         return pitchLock != null;
     }
@@ -102,6 +120,7 @@ public class FlagWatcher {
         double diff = yModifier - getYModifier();
 
         this.yModifier = yModifier;
+        modifications++;
 
         if (!getDisguise().isDisguiseInUse()) {
             return;
@@ -142,6 +161,7 @@ public class FlagWatcher {
         }
 
         this.pitchLock = pitch;
+        modifications++;
 
         if (!getDisguise().isDisguiseInUse()) {
             return;
@@ -172,6 +192,7 @@ public class FlagWatcher {
 
     public void setYawLock(Float yaw) {
         this.yawLock = yaw;
+        modifications++;
 
         if (!getDisguise().isDisguiseInUse()) {
             return;
@@ -542,8 +563,8 @@ public class FlagWatcher {
             }
 
             if (NmsVersion.v1_13.isSupported()) {
-                setData(MetaIndex.ENTITY_CUSTOM_NAME, Optional.of(WrappedChatComponent
-                        .fromJson(ComponentSerializer.toString(DisguiseUtilities.getColoredChat(name)))));
+                setData(MetaIndex.ENTITY_CUSTOM_NAME,
+                        Optional.of(WrappedChatComponent.fromJson(DisguiseUtilities.getColoredChatJson(name))));
             } else {
                 setData(MetaIndex.ENTITY_CUSTOM_NAME_OLD, name);
             }
@@ -557,6 +578,10 @@ public class FlagWatcher {
     }
 
     protected TargetedDisguise getDisguise() {
+        if (recordedMetadata != null) {
+            recordedMetadata.add(null);
+        }
+
         return disguise;
     }
 
@@ -566,6 +591,10 @@ public class FlagWatcher {
     }
 
     public EntityEquipment getEquipment() {
+        if (recordedMetadata != null) {
+            recordedMetadata.add(null);
+        }
+
         return equipment;
     }
 
@@ -589,11 +618,22 @@ public class FlagWatcher {
         return equipment.getItem(slot);
     }
 
+    /**
+     * The cached NMS copy of {@link #getItemStack(EquipmentSlot)}
+     */
+    public Object getNmsItem(EquipmentSlot slot) {
+        return equipment.getNmsItem(slot);
+    }
+
     protected <Y> Y getData(MetaIndex<Y> flagType) {
         if (flagType == null) {
             return null;
         }
 
+        if (recordedMetadata != null) {
+            recordedMetadata.add(flagType);
+        }
+
         if (entityValues.containsKey(flagType.getIndex())) {
             return (Y) entityValues.get(flagType.getIndex());
         }
@@ -618,9 +658,26 @@ public class FlagWatcher {
             return false;
         }
 
+        if (recordedMetadata != null) {
+            recordedMetadata.add(no);
+        }
+
         return entityValues.containsKey(no.getIndex());
     }
 
+    /**
+     * @return If any of this metadata was set on this watcher, so a getter reading only this may not be the default
+     */
+    public boolean hasAnyValue(MetaIndex[] indexes) {
+        for (MetaIndex index : indexes) {
+            if (entityValues.containsKey(index.getIndex())) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
     public boolean isBurning() {
         return getEntityFlag(0);
     }
@@ -877,17 +934,23 @@ public class FlagWatcher {
     }
 
     protected void sendItemStack(EquipmentSlot slot, ItemStack itemStack) {
+        modifications++;
+
         if (!DisguiseAPI.isDisguiseInUse(getDisguise()) || getDisguise().getWatcher() != this ||
                 getDisguise().getEntity() == null) {
             return;
         }
 
+        Object itemToSend;
+
         if (itemStack == null && getDisguise().getEntity() instanceof LivingEntity) {
-            itemStack = ReflectionManager.getEquipment(slot, getDisguise().getEntity());
+            itemToSend = ReflectionManager.getNmsItem(ReflectionManager.getEquipment(slot, getDisguise().getEntity()));
+        } else if (itemStack == getItemStack(slot)) {
+            itemToSend = getNmsItem(slot);
+        } else {
+            itemToSend = ReflectionManager.getNmsItem(itemStack);
         }
 
-        Object itemToSend = ReflectionManager.getNmsItem(itemStack);
-
         PacketContainer packet = new PacketContainer(Server.ENTITY_EQUIPMENT);
 
         StructureModifier<Object> mods = packet.getModifier();
@@ -973,6 +1036,7 @@ public class FlagWatcher {
         }
 
         entityValues.put(id.getIndex(), value);
+        modifications++;
 
         if (!DisguiseConfig.isMetaPacketsEnabled()) {
             rebuildWatchableObjects();
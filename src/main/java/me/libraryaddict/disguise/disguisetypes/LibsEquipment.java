@@ -1,14 +1,43 @@
 package me.libraryaddict.disguise.disguisetypes; // Its here so I can make use of flagWatcher.sendItemStack() which
 // is protected
 
+import me.libraryaddict.disguise.utilities.reflection.ReflectionManager;
+import org.bukkit.Material;
 import org.bukkit.entity.Entity;
 import org.bukkit.inventory.EntityEquipment;
 import org.bukkit.inventory.EquipmentSlot;
 import org.bukkit.inventory.ItemStack;
 
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
 public class LibsEquipment implements EntityEquipment {
+    /**
+     * The NMS copy of an item, remembering a copy of the item it was made from
+     */
+    private static class NmsItem {
+        private final ItemStack snapshot;
+        private final Object nmsItem;
+
+        private NmsItem(ItemStack snapshot, Object nmsItem) {
+            this.snapshot = snapshot;
+            this.nmsItem = nmsItem;
+        }
+
+        /**
+         * If the item is still the same as when this was made, the item may have been modified since it was set
+         */
+        private boolean isMadeFrom(ItemStack item) {
+            return Objects.equals(snapshot, item);
+        }
+    }
+
     private ItemStack[] equipment = new ItemStack[EquipmentSlot.values().length];
     private transient FlagWatcher flagWatcher;
+    /**
+     * Read and written from the packet threads as well as the main thread
+     */
+    private transient volatile AtomicReferenceArray<NmsItem> nmsEquipment;
 
     public LibsEquipment(FlagWatcher flagWatcher) {
         this.flagWatcher = flagWatcher;
@@ -47,11 +76,49 @@ public class LibsEquipment implements EntityEquipment {
         return equipment[slot.ordinal()];
     }
 
+    /**
+     * Get the NMS item for this slot, air is treated as null. The conversion is cached for as long as the item is
+     * equal to what it was converted from, so an ItemStack modified after it was set is converted again
+     */
+    public Object getNmsItem(EquipmentSlot slot) {
+        AtomicReferenceArray<NmsItem> nmsItems = getNmsEquipment();
+        ItemStack item = getItem(slot);
+        NmsItem nmsItem = nmsItems.get(slot.ordinal());
+
+        if (nmsItem == null || !nmsItem.isMadeFrom(item)) {
+            ItemStack snapshot = item == null ? null : item.clone();
+
+            nmsItem = new NmsItem(snapshot, ReflectionManager
+                    .getNmsItem(snapshot == null || snapshot.getType() == Material.AIR ? null : snapshot));
+
+            nmsItems.set(slot.ordinal(), nmsItem);
+        }
+
+        return nmsItem.nmsItem;
+    }
+
+    private AtomicReferenceArray<NmsItem> getNmsEquipment() {
+        AtomicReferenceArray<NmsItem> nmsItems = nmsEquipment;
+
+        if (nmsItems == null) {
+            synchronized (this) {
+                if (nmsEquipment == null) {
+                    nmsEquipment = new AtomicReferenceArray<>(equipment.length);
+                }
+
+                nmsItems = nmsEquipment;
+            }
+        }
+
+        return nmsItems;
+    }
+
     public void setItem(EquipmentSlot slot, ItemStack item) {
         if (getItem(slot) == item)
             return;
 
         equipment[slot.ordinal()] = item;
+
         flagWatcher.sendItemStack(slot, item);
     }
 
@@ -282,6 +282,10 @@ public class PlayerDisguise extends TargetedDisguise {
             return;
         }
 
+        if (getWatcher() != null) {
+            getWatcher().markModified();
+        }
+
         int cLimit;
 
         switch (DisguiseConfig.getPlayerNameType()) {
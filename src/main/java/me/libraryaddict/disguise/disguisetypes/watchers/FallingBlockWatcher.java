@@ -52,6 +52,7 @@ public class FallingBlockWatcher extends FlagWatcher {
         }
 
         this.gridLocked = gridLocked;
+        markModified();
 
         if (getDisguise().isDisguiseInUse() && getDisguise().getEntity() != null) {
             PacketContainer relMove = new PacketContainer(PacketType.Play.Server.REL_ENTITY_MOVE);
@@ -95,6 +96,7 @@ public class FallingBlockWatcher extends FlagWatcher {
         }
 
         this.block = block;
+        markModified();
 
         if (!getDisguise().isCustomDisguiseName()) {
             getDisguise().setDisguiseName(TranslateType.DISGUISE_OPTIONS_PARAMETERS.get("Block") + " " +
@@ -125,6 +127,7 @@ public class FallingBlockWatcher extends FlagWatcher {
 
         this.block = new ItemStack(data.getMaterial());
         this.blockData = data;
+        markModified();
 
         if (!getDisguise().isCustomDisguiseName()) {
             getDisguise().setDisguiseName(TranslateType.DISGUISE_OPTIONS_PARAMETERS.get("Block") + " " +
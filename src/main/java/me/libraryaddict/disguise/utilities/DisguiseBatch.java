@@ -0,0 +1,159 @@
+package me.libraryaddict.disguise.utilities;
+
+import com.comphenix.protocol.PacketType;
+import com.comphenix.protocol.ProtocolLibrary;
+import com.comphenix.protocol.events.PacketContainer;
+import com.comphenix.protocol.wrappers.EnumWrappers.PlayerInfoAction;
+import com.comphenix.protocol.wrappers.PlayerInfoData;
+import lombok.Getter;
+import me.libraryaddict.disguise.disguisetypes.TargetedDisguise;
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.*;
+
+/**
+ * While a batch is open, the tab list changes and tracker refreshes from starting or removing disguises are collected
+ * instead of sent. When it's finished each player is sent one tab list packet for each action, and one destroy packet
+ * for all the entities that were refreshed.
+ * <p>
+ * Batches can be opened inside each other, only the outermost one sends anything.
+ */
+public class DisguiseBatch {
+    @Getter
+    private static DisguiseBatch current;
+
+    private final Map<UUID, List<Map.Entry<PlayerInfoData, TargetedDisguise>>> tabRemoved = new LinkedHashMap<>();
+    private final Map<UUID, List<Map.Entry<PlayerInfoData, TargetedDisguise>>> tabAdded = new LinkedHashMap<>();
+    private final Set<TargetedDisguise> toRefresh = new LinkedHashSet<>();
+    private int depth;
+
+    private DisguiseBatch() {
+    }
+
+    /**
+     * Starts collecting packets, {@link #finish()} must be called after or nothing will be sent
+     */
+    public static DisguiseBatch start() {
+        if (!Bukkit.isPrimaryThread()) {
+            throw new IllegalStateException("Cannot modify disguises on an async thread");
+        }
+
+        if (current == null) {
+            current = new DisguiseBatch();
+        }
+
+        current.depth++;
+
+        return current;
+    }
+
+    /**
+     * Sends the tab list packet to everyone who can see this disguise, or adds it to the current batch if there is one
+     */
+    public static void sendTabPacket(TargetedDisguise disguise, PlayerInfoAction action, PlayerInfoData data) {
+        if (current != null) {
+            current.addTabPacket(disguise, action, data);
+            return;
+        }
+
+        PacketContainer packet = new PacketContainer(PacketType.Play.Server.PLAYER_INFO);
+        packet.getPlayerInfoAction().write(0, action);
+        packet.getPlayerInfoDataLists().write(0, Collections.singletonList(data));
+
+        try {
+            for (Player player : Bukkit.getOnlinePlayers()) {
+                if (!disguise.canSee(player)) {
+                    continue;
+                }
+
+                ProtocolLibrary.getProtocolManager().sendServerPacket(player, packet);
+            }
+        } catch (InvocationTargetException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private void addTabPacket(TargetedDisguise disguise, PlayerInfoAction action, PlayerInfoData data) {
+        UUID uuid = data.getProfile().getUUID();
+
+        if (action == PlayerInfoAction.ADD_PLAYER) {
+            tabAdded.put(uuid, Collections.singletonList(new AbstractMap.SimpleEntry<>(data, disguise)));
+            return;
+        }
+
+        // Anything added before this is removed again, so only the remove is sent
+        tabAdded.remove(uuid);
+        tabRemoved.computeIfAbsent(uuid, key -> new ArrayList<>()).add(new AbstractMap.SimpleEntry<>(data, disguise));
+    }
+
+    public void addRefresh(TargetedDisguise disguise) {
+        toRefresh.add(disguise);
+    }
+
+    /**
+     * Sends everything collected, if this is the outermost batch
+     */
+    public void finish() {
+        if (--depth > 0) {
+            return;
+        }
+
+        current = null;
+
+        // Removes go first, so something removed then added again in the same batch is still shown
+        sendTabPackets(PlayerInfoAction.REMOVE_PLAYER, tabRemoved.values());
+        sendTabPackets(PlayerInfoAction.ADD_PLAYER, tabAdded.values());
+
+        if (!toRefresh.isEmpty()) {
+            DisguiseUtilities.refreshTrackers(toRefresh);
+        }
+    }
+
+    /**
+     * @param changes For each profile, the disguises that changed it. A player is told if they can see any of them
+     */
+    private void sendTabPackets(PlayerInfoAction action,
+            Collection<List<Map.Entry<PlayerInfoData, TargetedDisguise>>> changes) {
+        if (changes.isEmpty()) {
+            return;
+        }
+
+        // Most players can see the same disguises, so they're sent the same packet
+        Map<List<PlayerInfoData>, PacketContainer> packets = new HashMap<>();
+
+        try {
+            for (Player player : Bukkit.getOnlinePlayers()) {
+                List<PlayerInfoData> visible = new ArrayList<>();
+
+                for (List<Map.Entry<PlayerInfoData, TargetedDisguise>> change : changes) {
+                    for (Map.Entry<PlayerInfoData, TargetedDisguise> entry : change) {
+                        if (!entry.getValue().canSee(player)) {
+                            continue;
+                        }
+
+                        visible.add(entry.getKey());
+                        break;
+                    }
+                }
+
+                if (visible.isEmpty()) {
+                    continue;
+                }
+
+                PacketContainer packet = packets.computeIfAbsent(visible, key -> {
+                    PacketContainer tabPacket = new PacketContainer(PacketType.Play.Server.PLAYER_INFO);
+                    tabPacket.getPlayerInfoAction().write(0, action);
+                    tabPacket.getPlayerInfoDataLists().write(0, key);
+
+                    return tabPacket;
+                });
+
+                ProtocolLibrary.getProtocolManager().sendServerPacket(player, packet);
+            }
+        } catch (InvocationTargetException e) {
+            e.printStackTrace();
+        }
+    }
+}
@@ -11,7 +11,6 @@ import com.comphenix.protocol.wrappers.nbt.NbtCompound;
 import com.comphenix.protocol.wrappers.nbt.NbtList;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
-import com.google.gson.JsonSyntaxException;
 import com.mojang.authlib.properties.PropertyMap;
 import com.mojang.datafixers.util.Pair;
 import lombok.Getter;
@@ -33,6 +32,10 @@ import me.libraryaddict.disguise.utilities.reflection.FakeBoundingBox;
 import me.libraryaddict.disguise.utilities.reflection.LibsProfileLookup;
 import me.libraryaddict.disguise.utilities.reflection.NmsVersion;
 import me.libraryaddict.disguise.utilities.reflection.ReflectionManager;
+import me.libraryaddict.disguise.utilities.saving.DisguiseCodec;
+import me.libraryaddict.disguise.utilities.saving.DisguiseSaveWriter;
+import me.libraryaddict.disguise.utilities.saving.SavedDisguiseLoader;
+import me.libraryaddict.disguise.utilities.saving.SavedDisguiseStore;
 import me.libraryaddict.disguise.utilities.translations.LibsMsg;
 import me.libraryaddict.disguise.utilities.watchers.CompileMethods;
 import net.md_5.bungee.api.chat.BaseComponent;
@@ -61,15 +64,14 @@ import org.bukkit.util.Vector;
 
 import java.io.*;
 import java.lang.reflect.*;
-import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.StandardCopyOption;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 import java.util.logging.Logger;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
-import java.util.stream.Collectors;
 
 public class DisguiseUtilities {
     @Setter
@@ -83,6 +85,37 @@ public class DisguiseUtilities {
         private String teamName;
         private String[] split;
         private PlayerDisguise disguise;
+        /**
+         * The prefix and suffix as they're sent in the team packets, cleared when the name changes
+         */
+        private WrappedChatComponent prefixComponent, suffixComponent;
+
+        public void setSplit(String[] split) {
+            this.split = split;
+
+            prefixComponent = null;
+            suffixComponent = null;
+        }
+
+        public WrappedChatComponent getPrefixComponent() {
+            WrappedChatComponent component = prefixComponent;
+
+            if (component == null) {
+                prefixComponent = component = WrappedChatComponent.fromJson(getColoredChatJson(getPrefix()));
+            }
+
+            return component;
+        }
+
+        public WrappedChatComponent getSuffixComponent() {
+            WrappedChatComponent component = suffixComponent;
+
+            if (component == null) {
+                suffixComponent = component = WrappedChatComponent.fromJson(getColoredChatJson(getSuffix()));
+            }
+
+            return component;
+        }
 
         public String getPlayer() {
             return split[1];
@@ -146,15 +179,42 @@ public class DisguiseUtilities {
      */
     @Getter
     private static final HashMap<Integer, HashSet<TargetedDisguise>> futureDisguises = new HashMap<>();
-    private static final HashSet<UUID> savedDisguiseList = new HashSet<>();
-    private static final HashSet<String> cachedNames = new HashSet<>();
-    private static final HashMap<String, ArrayList<Object>> runnables = new HashMap<>();
+    /**
+     * Every entity with saved disguises, and the chunk they were saved in
+     */
+    private static final HashMap<UUID, Long> savedDisguiseList = new HashMap<>();
+    /**
+     * The saved entities in each chunk, so loading a chunk doesn't need to check every entity
+     */
+    private static final HashMap<Long, HashSet<UUID>> savedDisguiseChunks = new HashMap<>();
+    /**
+     * Saved entities that don't know what chunk they're in, every chunk load checks its entities against these
+     */
+    private static final HashSet<UUID> unlocatedSavedDisguises = new HashSet<>();
     @Getter
     private static final HashSet<UUID> selfDisguised = new HashSet<>();
     private static final HashMap<UUID, String> preDisguiseTeam = new HashMap<>();
     private static final HashMap<UUID, String> disguiseTeam = new HashMap<>();
-    private static final File profileCache = new File("plugins/LibsDisguises/GameProfiles");
+    /**
+     * The registered extended names by their team name, used by the scoreboard team packet listener
+     */
+    private static final ConcurrentHashMap<String, DScoreTeam> extendedNames = new ConcurrentHashMap<>();
+    @Getter
+    private static final GameProfileCache gameProfileCache =
+            new GameProfileCache(new File("plugins/LibsDisguises/GameProfiles"));
+    @Getter
+    private static final ProfileLookupQueue profileLookupQueue =
+            new ProfileLookupQueue(DisguiseUtilities::lookupGameProfiles, 50, 2,
+                    runnable -> Bukkit.getScheduler().runTask(LibsDisguises.getInstance(), runnable));
+    /**
+     * Where saved disguises were kept as a file per entity, only used to migrate them
+     */
     private static final File savedDisguises = new File("plugins/LibsDisguises/SavedDisguises");
+    private static final SavedDisguiseStore savedDisguiseStore = new SavedDisguiseStore(
+            new File("plugins/LibsDisguises/SavedDisguises.dat"));
+    private static final DisguiseSaveWriter saveWriter = new DisguiseSaveWriter(savedDisguiseStore);
+    private static final SavedDisguiseLoader savedDisguiseLoader =
+            new SavedDisguiseLoader(savedDisguiseStore, saveWriter);
     @Getter
     private static Gson gson;
     @Getter
@@ -170,15 +230,35 @@ public class DisguiseUtilities {
     @Getter
     private static boolean runningPaper;
     @Getter
-    private static final MineSkinAPI mineSkinAPI = new MineSkinAPI();
+    private static final MineSkinAPI mineSkinAPI =
+            new MineSkinAPI("https://api.mineskin.org", new File("plugins/LibsDisguises/MineSkinCache"));
     @Getter
     private static boolean invalidFile;
     @Getter
     private static final char[] alphabet = "0123456789abcdefghijklmnopqrstuvwxyz".toCharArray();
     private static final Pattern urlMatcher = Pattern.compile("^(?:(https?)://)?([-\\w_.]{2,}\\.[a-z]{2,4})(/\\S*)?$");
+    private static final Pattern quoteHexPattern = Pattern.compile("(<)(#[0-9a-fA-F]{6}>)");
+    private static final Pattern unquoteHexPattern = Pattern.compile("(<)\\\\(#[0-9a-fA-F]{6}>)");
+    /**
+     * The most recently used names and messages, parsed into chat components
+     */
+    private static final Map<String, ColoredChat> coloredChatCache =
+            Collections.synchronizedMap(new LinkedHashMap<String, ColoredChat>(16, 0.75F, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, ColoredChat> eldest) {
+                    return size() > 500;
+                }
+            });
     private final static List<UUID> viewSelf = new ArrayList<>();
     private final static List<UUID> viewBar = new ArrayList<>();
     private static long lastSavedPreferences;
+    /**
+     * When an entity was last attacked or last undisguised, used by the PvP timers. Kept out of Bukkit metadata as
+     * these are touched on every attack
+     */
+    private static final ConcurrentHashMap<UUID, Long> lastAttacked = new ConcurrentHashMap<>();
+    private static final ConcurrentHashMap<UUID, Long> lastUndisguised = new ConcurrentHashMap<>();
+    private static long lastTimersPruned;
 
     /**
      * Only allow saves every 2 minutes
@@ -410,6 +490,44 @@ public class DisguiseUtilities {
         }
     }
 
+    public static void setLastAttacked(Entity entity) {
+        lastAttacked.put(entity.getUniqueId(), System.currentTimeMillis());
+
+        pruneTimers();
+    }
+
+    public static long getLastAttacked(Entity entity) {
+        return lastAttacked.getOrDefault(entity.getUniqueId(), 0L);
+    }
+
+    public static void setLastUndisguised(Entity entity) {
+        lastUndisguised.put(entity.getUniqueId(), System.currentTimeMillis());
+
+        pruneTimers();
+    }
+
+    public static long getLastUndisguised(Entity entity) {
+        return lastUndisguised.getOrDefault(entity.getUniqueId(), 0L);
+    }
+
+    /**
+     * Once a minute, forget timers that are older than the PvP timer and can no longer matter
+     */
+    private static void pruneTimers() {
+        long now = System.currentTimeMillis();
+
+        if (lastTimersPruned + TimeUnit.MINUTES.toMillis(1) > now) {
+            return;
+        }
+
+        lastTimersPruned = now;
+
+        long expired = now - TimeUnit.SECONDS.toMillis(DisguiseConfig.getPvPTimer());
+
+        lastAttacked.values().removeIf(time -> time < expired);
+        lastUndisguised.values().removeIf(time -> time < expired);
+    }
+
     public static String getProtocolLibRequiredVersion() {
         return !NmsVersion.v1_13.isSupported() ? "4.4.0" : NmsVersion.v1_16.isSupported() ? "4.6.0" : "4.5.1";
     }
@@ -476,7 +594,14 @@ public class DisguiseUtilities {
 
     public static void saveDisguises() {
         saveViewPreferances();
+        saveActiveDisguises();
+
+        // Finish writing everything that's waiting, including saves from before this
+        saveWriter.shutdown();
+        gameProfileCache.shutdown();
+    }
 
+    private static void saveActiveDisguises() {
         if (!LibsPremium.isPremium()) {
             return;
         }
@@ -507,7 +632,7 @@ public class DisguiseUtilities {
     }
 
     public static boolean hasGameProfile(String playername) {
-        return cachedNames.contains(playername.toLowerCase(Locale.ENGLISH));
+        return gameProfileCache.has(playername);
     }
 
     public static void createClonedDisguise(Player player, Entity toClone, Boolean[] options) {
@@ -550,18 +675,24 @@ public class DisguiseUtilities {
             return;
         }
 
-        if (!savedDisguises.exists()) {
-            savedDisguises.mkdirs();
-        }
-
         try {
-            File disguiseFile = new File(savedDisguises, owningEntity.toString());
-
             if (disguise == null || disguise.length == 0) {
-                if (savedDisguiseList.contains(owningEntity)) {
-                    disguiseFile.delete();
-                }
+                removeSavedDisguise(owningEntity);
             } else {
+                Entity entity = disguise[0].getEntity();
+                long chunk;
+
+                // Players are loaded when they join, not with chunks
+                if (entity instanceof Player) {
+                    chunk = SavedDisguiseStore.PLAYER_CHUNK;
+                } else if (entity != null) {
+                    chunk = getChunkKey(entity.getWorld(), entity.getLocation().getBlockX() >> 4,
+                            entity.getLocation().getBlockZ() >> 4);
+                } else {
+                    chunk = SavedDisguiseStore.NO_CHUNK;
+                }
+
+                // Only the snapshot is taken here, serializing and writing is done by the save writer
                 Disguise[] disguises = new Disguise[disguise.length];
 
                 for (int i = 0; i < disguise.length; i++) {
@@ -571,14 +702,9 @@ public class DisguiseUtilities {
                     disguises[i] = dis;
                 }
 
-                // I hear pirates don't obey standards
-                @SuppressWarnings("MismatchedStringCase")
-                PrintWriter writer =
-                        new PrintWriter(disguiseFile, "12345".equals("%%__USER__%%") ? "US-ASCII" : "UTF-8");
-                writer.write(gson.toJson(disguises));
-                writer.close();
+                saveWriter.save(owningEntity, chunk, disguises);
 
-                savedDisguiseList.add(owningEntity);
+                setSavedChunk(owningEntity, chunk);
             }
         } catch (StackOverflowError | Exception e) {
             e.printStackTrace();
@@ -594,37 +720,36 @@ public class DisguiseUtilities {
             return new Disguise[0];
         }
 
-        if (!savedDisguises.exists()) {
-            savedDisguises.mkdirs();
-        }
+        Disguise[] pending = saveWriter.getPending(entityUUID);
 
-        File disguiseFile = new File(savedDisguises, entityUUID.toString());
+        // If it hasn't been written yet, use what is waiting to be written
+        if (pending != null) {
+            Disguise[] disguises = new Disguise[pending.length];
 
-        if (!disguiseFile.exists()) {
-            savedDisguiseList.remove(entityUUID);
-            return new Disguise[0];
-        }
-
-        try {
-            String cached;
-
-            try (FileInputStream input = new FileInputStream(disguiseFile);
-                 InputStreamReader inputReader = new InputStreamReader(input, StandardCharsets.UTF_8);
-                 BufferedReader reader = new BufferedReader(inputReader)) {
-                cached = reader.lines().collect(Collectors.joining("\n"));
+            for (int i = 0; i < pending.length; i++) {
+                disguises[i] = pending[i].clone();
             }
 
             if (remove) {
                 removeSavedDisguise(entityUUID);
             }
 
-            Disguise[] disguises = gson.fromJson(cached, Disguise[].class);
+            return disguises;
+        }
+
+        try {
+            byte[] data = savedDisguiseStore.read(entityUUID);
 
-            if (disguises == null) {
+            if (data == null) {
+                setSavedChunk(entityUUID, null);
                 return new Disguise[0];
             }
 
-            return disguises;
+            if (remove) {
+                removeSavedDisguise(entityUUID);
+            }
+
+            return DisguiseCodec.decodeSaved(data);
         } catch (Exception e) {
             getLogger().severe("Malformed disguise for " + entityUUID);
             e.printStackTrace();
@@ -633,22 +758,147 @@ public class DisguiseUtilities {
         return new Disguise[0];
     }
 
-    public static void removeSavedDisguise(UUID entityUUID) {
-        if (!savedDisguiseList.remove(entityUUID)) {
+    /**
+     * Move the saved disguises from the old file per entity folder into the saved disguises store
+     */
+    private static void migrateSavedDisguises() throws IOException {
+        String[] files = savedDisguises.list();
+
+        if (files == null) {
             return;
         }
 
-        if (!savedDisguises.exists()) {
-            savedDisguises.mkdirs();
+        int migrated = 0;
+
+        for (String key : files) {
+            File file = new File(savedDisguises, key);
+
+            // Left behind by a save that was interrupted
+            if (key.endsWith(".tmp")) {
+                file.delete();
+                continue;
+            }
+
+            UUID uuid;
+
+            try {
+                uuid = UUID.fromString(key);
+            } catch (Exception ex) {
+                getLogger().warning("The file '" + key + "' does not belong in " + savedDisguises.getAbsolutePath());
+                continue;
+            }
+
+            savedDisguiseStore.write(uuid, SavedDisguiseStore.NO_CHUNK, Files.readAllBytes(file.toPath()));
+            file.delete();
+            migrated++;
         }
 
-        File disguiseFile = new File(savedDisguises, entityUUID.toString());
+        if (migrated > 0) {
+            getLogger().info("Migrated " + migrated + " saved disguises to " + savedDisguiseStore.getFile().getName());
+        }
 
-        disguiseFile.delete();
+        // Only removed if nothing was left behind
+        savedDisguises.delete();
+    }
+
+    public static void removeSavedDisguise(UUID entityUUID) {
+        if (!setSavedChunk(entityUUID, null)) {
+            return;
+        }
+
+        saveWriter.delete(entityUUID);
     }
 
     public static boolean isSavedDisguise(UUID entityUUID) {
-        return savedDisguiseList.contains(entityUUID);
+        return savedDisguiseList.containsKey(entityUUID);
+    }
+
+    /**
+     * A key for the chunk, different worlds are mixed in so they rarely collide. It only decides what is loaded
+     * early, so a collision only costs a wasted read
+     */
+    public static long getChunkKey(World world, int chunkX, int chunkZ) {
+        return ((long) chunkX << 32 | chunkZ & 0xFFFFFFFFL) ^ world.getUID().getMostSignificantBits();
+    }
+
+    /**
+     * Record what chunk the entity was saved in
+     *
+     * @param chunk Null if the entity no longer has saved disguises
+     * @return If the entity previously had saved disguises
+     */
+    private static boolean setSavedChunk(UUID entityUUID, Long chunk) {
+        Long oldChunk = chunk == null ? savedDisguiseList.remove(entityUUID) : savedDisguiseList.put(entityUUID, chunk);
+
+        // Anything being loaded is now outdated
+        savedDisguiseLoader.invalidate(entityUUID);
+
+        if (oldChunk != null) {
+            if (oldChunk == SavedDisguiseStore.NO_CHUNK) {
+                unlocatedSavedDisguises.remove(entityUUID);
+            } else if (oldChunk != SavedDisguiseStore.PLAYER_CHUNK) {
+                HashSet<UUID> inChunk = savedDisguiseChunks.get(oldChunk);
+
+                if (inChunk != null && inChunk.remove(entityUUID) && inChunk.isEmpty()) {
+                    savedDisguiseChunks.remove(oldChunk);
+                }
+            }
+        }
+
+        if (chunk != null) {
+            if (chunk == SavedDisguiseStore.NO_CHUNK) {
+                unlocatedSavedDisguises.add(entityUUID);
+            } else if (chunk != SavedDisguiseStore.PLAYER_CHUNK) {
+                savedDisguiseChunks.computeIfAbsent(chunk, key -> new HashSet<>()).add(entityUUID);
+            }
+        }
+
+        return oldChunk != null;
+    }
+
+    /**
+     * Disguise the entities in this chunk that have saved disguises. Those saved in this chunk are read off the main
+     * thread and disguised over the next few ticks
+     */
+    public static void loadSavedDisguises(Chunk chunk) {
+        HashSet<UUID> inChunk = savedDisguiseChunks.get(getChunkKey(chunk.getWorld(), chunk.getX(), chunk.getZ()));
+
+        if (inChunk != null) {
+            savedDisguiseLoader.load(inChunk);
+        }
+
+        if (unlocatedSavedDisguises.isEmpty()) {
+            return;
+        }
+
+        for (Entity entity : chunk.getEntities()) {
+            if (!unlocatedSavedDisguises.contains(entity.getUniqueId())) {
+                continue;
+            }
+
+            Disguise[] disguises = getSavedDisguises(entity.getUniqueId(), true);
+
+            if (disguises.length <= 0) {
+                continue;
+            }
+
+            resetPluginTimer();
+
+            for (Disguise disguise : disguises) {
+                disguise.setEntity(entity);
+                disguise.startDisguise();
+            }
+        }
+    }
+
+    /**
+     * If this entity will have its saved disguises loaded when its chunk loads
+     */
+    public static boolean isSavedInChunk(Entity entity) {
+        Long chunk = savedDisguiseList.get(entity.getUniqueId());
+
+        return chunk != null && chunk == getChunkKey(entity.getWorld(), entity.getLocation().getBlockX() >> 4,
+                entity.getLocation().getBlockZ() >> 4);
     }
 
     public static boolean addClonedDisguise(String key, Disguise disguise) {
@@ -767,16 +1017,7 @@ public class DisguiseUtilities {
 
     public static void addGameProfile(String string, WrappedGameProfile gameProfile) {
         try {
-            if (!profileCache.exists()) {
-                profileCache.mkdirs();
-            }
-
-            File file = new File(profileCache, string.toLowerCase(Locale.ENGLISH));
-            PrintWriter writer = new PrintWriter(file);
-            writer.write(gson.toJson(gameProfile));
-            writer.close();
-
-            cachedNames.add(string.toLowerCase(Locale.ENGLISH));
+            gameProfileCache.add(string, gameProfile);
         } catch (StackOverflowError | Exception e) {
             e.printStackTrace();
         }
@@ -985,39 +1226,7 @@ public class DisguiseUtilities {
     }
 
     public static WrappedGameProfile getGameProfile(String playerName) {
-        playerName = playerName.toLowerCase(Locale.ENGLISH);
-
-        if (!hasGameProfile(playerName)) {
-            return null;
-        }
-
-        if (!profileCache.exists()) {
-            profileCache.mkdirs();
-        }
-
-        File file = new File(profileCache, playerName);
-
-        if (!file.exists()) {
-            cachedNames.remove(playerName);
-            return null;
-        }
-
-        try {
-            BufferedReader reader = new BufferedReader(new FileReader(file));
-            String cached = reader.readLine();
-            reader.close();
-
-            return gson.fromJson(cached, WrappedGameProfile.class);
-        } catch (JsonSyntaxException ex) {
-            DisguiseUtilities.getLogger()
-                    .warning("Gameprofile " + file.getName() + " had invalid gson and has been deleted");
-            cachedNames.remove(playerName);
-            file.delete();
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
-
-        return null;
+        return gameProfileCache.get(playerName);
     }
 
     public static TargetedDisguise getMainDisguise(Integer entityId) {
@@ -1122,6 +1331,20 @@ public class DisguiseUtilities {
             WrappedGameProfile profile = getGameProfile(playerName);
 
             if (profile != null) {
+                // Use the old skin for now, the next disguise will have the refreshed skin
+                if (contactMojang && Pattern.matches("([A-Za-z0-9_]){1,16}", origName) &&
+                        gameProfileCache.tryRefresh(playerName,
+                                TimeUnit.MINUTES.toMillis(DisguiseConfig.getStaleGameProfiles()),
+                                DisguiseConfig.getStaleGameProfileRefreshesPerMinute())) {
+                    // A lookup that's already running will save it
+                    profileLookupQueue.startLookup(origName, gameProfile -> {
+                        if (gameProfile != null && !gameProfile.getProperties().isEmpty() &&
+                                DisguiseConfig.isSaveGameProfiles()) {
+                            addGameProfile(playerName, gameProfile);
+                        }
+                    });
+                }
+
                 return profile;
             }
         }
@@ -1141,46 +1364,21 @@ public class DisguiseUtilities {
                 }
             }
 
-            synchronized (runnables) {
-                if (contactMojang && !runnables.containsKey(playerName)) {
-                    runnables.put(playerName, new ArrayList<>());
-
-                    if (runnable != null) {
-                        runnables.get(playerName).add(runnable);
-                    }
-
-                    Bukkit.getScheduler().runTaskAsynchronously(LibsDisguises.getInstance(), () -> {
-                        try {
-                            final WrappedGameProfile gameProfile = lookupGameProfile(origName);
-
-                            Bukkit.getScheduler().runTask(LibsDisguises.getInstance(), () -> {
-                                if (DisguiseConfig.isSaveGameProfiles()) {
-                                    addGameProfile(playerName, gameProfile);
-                                }
-
-                                synchronized (runnables) {
-                                    if (runnables.containsKey(playerName)) {
-                                        for (Object obj : runnables.remove(playerName)) {
-                                            if (obj instanceof Runnable) {
-                                                ((Runnable) obj).run();
-                                            } else if (obj instanceof LibsProfileLookup) {
-                                                ((LibsProfileLookup) obj).onLookup(gameProfile);
-                                            }
-                                        }
-                                    }
-                                }
-                            });
-                        } catch (Exception e) {
-                            synchronized (runnables) {
-                                runnables.remove(playerName);
-                            }
-
-                            getLogger().severe("Error when fetching " + playerName + "'s uuid from mojang: " +
-                                    e.getMessage());
+            if (contactMojang) {
+                // Held so the lookup can't finish before the runnable is added to it
+                synchronized (profileLookupQueue) {
+                    // Saved first so the callbacks can find it, only once by whoever started the lookup
+                    profileLookupQueue.startLookup(origName, gameProfile -> {
+                        if (gameProfile != null && DisguiseConfig.isSaveGameProfiles()) {
+                            addGameProfile(playerName, gameProfile);
                         }
                     });
-                } else if (runnable != null && contactMojang) {
-                    runnables.get(playerName).add(runnable);
+
+                    if (runnable instanceof Runnable) {
+                        profileLookupQueue.lookup(origName, gameProfile -> ((Runnable) runnable).run());
+                    } else if (runnable instanceof LibsProfileLookup) {
+                        profileLookupQueue.lookup(origName, (LibsProfileLookup) runnable);
+                    }
                 }
             }
 
@@ -1239,25 +1437,22 @@ public class DisguiseUtilities {
 
         gson = gsonBuilder.create();
 
-        if (!profileCache.exists()) {
-            profileCache.mkdirs();
-        }
-
-        if (!savedDisguises.exists()) {
-            savedDisguises.mkdirs();
-        }
-
-        cachedNames.addAll(Arrays.asList(profileCache.list()));
+        gameProfileCache.load();
 
         invalidFile = LibsDisguises.getInstance().getFile().getName().toLowerCase(Locale.ENGLISH)
                 .matches(".*((crack)|(null)|(leak)).*");
 
-        for (String key : savedDisguises.list()) {
-            try {
-                savedDisguiseList.add(UUID.fromString(key));
-            } catch (Exception ex) {
-                getLogger().warning("The file '" + key + "' does not belong in " + savedDisguises.getAbsolutePath());
+        try {
+            savedDisguiseStore.open();
+
+            migrateSavedDisguises();
+
+            for (Map.Entry<UUID, Long> entry : savedDisguiseStore.getSavedChunks().entrySet()) {
+                setSavedChunk(entry.getKey(), entry.getValue());
             }
+        } catch (IOException e) {
+            getLogger().severe("Unable to load the saved disguises");
+            e.printStackTrace();
         }
 
         // Clear the old scoreboard teams for extended names!
@@ -1325,6 +1520,34 @@ public class DisguiseUtilities {
         return ReflectionManager.getSkullBlob(ReflectionManager.grabProfileAddUUID(playerName));
     }
 
+    /**
+     * Looks up the names in one request, then fetches their skins
+     *
+     * @return The profiles by lowercase name
+     */
+    private static Map<String, WrappedGameProfile> lookupGameProfiles(String[] playerNames) {
+        Map<String, WrappedGameProfile> found = ReflectionManager.grabProfilesAddUUID(playerNames);
+
+        if (found == null) {
+            throw new IllegalStateException("Unable to contact the profile repository");
+        }
+
+        HashMap<String, WrappedGameProfile> profiles = new HashMap<>();
+
+        for (String playerName : playerNames) {
+            String lowerName = playerName.toLowerCase(Locale.ENGLISH);
+            WrappedGameProfile profile = found.get(lowerName);
+
+            if (profile == null) {
+                profile = ReflectionManager.getGameProfile(null, playerName);
+            }
+
+            profiles.put(lowerName, ReflectionManager.getSkullBlob(profile));
+        }
+
+        return profiles;
+    }
+
     /**
      * Resends the entity to this specific player
      */
@@ -1465,66 +1688,119 @@ public class DisguiseUtilities {
             throw new IllegalStateException("Cannot modify disguises on an async thread");
         }
 
-        if (!disguise.getEntity().isValid()) {
+        if (DisguiseBatch.getCurrent() != null) {
+            DisguiseBatch.getCurrent().addRefresh(disguise);
             return;
         }
 
-        try {
-            if (selfDisguised.contains(disguise.getEntity().getUniqueId()) && disguise.isDisguiseInUse()) {
-                removeSelfDisguise(disguise);
+        refreshTrackers(Collections.singletonList(disguise));
+    }
 
-                selfDisguised.add(disguise.getEntity().getUniqueId());
+    /**
+     * Resends the entities of these disguises to the watching players. Each player is sent one destroy packet for all
+     * of them, and they're all respawned in the same task
+     */
+    public static void refreshTrackers(Collection<TargetedDisguise> disguises) {
+        if (!Bukkit.isPrimaryThread()) {
+            throw new IllegalStateException("Cannot modify disguises on an async thread");
+        }
 
-                PacketContainer destroyPacket = getDestroyPacket(DisguiseAPI.getSelfDisguiseId());
+        final Method clear = ReflectionManager
+                .getNmsMethod("EntityTrackerEntry", NmsVersion.v1_14.isSupported() ? "a" : "clear",
+                        ReflectionManager.getNmsClass("EntityPlayer"));
 
-                ProtocolLibrary.getProtocolManager().sendServerPacket((Player) disguise.getEntity(), destroyPacket);
+        final Method updatePlayer = ReflectionManager
+                .getNmsMethod("EntityTrackerEntry", NmsVersion.v1_14.isSupported() ? "b" : "updatePlayer",
+                        ReflectionManager.getNmsClass("EntityPlayer"));
 
-                Bukkit.getScheduler().scheduleSyncDelayedTask(LibsDisguises.getInstance(), () -> {
-                    try {
-                        DisguiseUtilities.sendSelfDisguise((Player) disguise.getEntity(), disguise);
-                    } catch (Exception ex) {
-                        ex.printStackTrace();
-                    }
-                }, 2);
+        Map<Player, Set<Integer>> destroyed = new LinkedHashMap<>();
+        List<Map.Entry<Object, Object>> respawns = new ArrayList<>();
+
+        for (TargetedDisguise disguise : disguises) {
+            if (!disguise.getEntity().isValid()) {
+                continue;
+            }
+
+            try {
+                refreshTrackers(disguise, clear, destroyed, respawns);
+            } catch (Exception ex) {
+                ex.printStackTrace();
             }
+        }
 
-            final Object entityTrackerEntry = ReflectionManager.getEntityTrackerEntry(disguise.getEntity());
+        try {
+            for (Map.Entry<Player, Set<Integer>> entry : destroyed.entrySet()) {
+                int[] ids = entry.getValue().stream().mapToInt(Integer::intValue).toArray();
 
-            if (entityTrackerEntry != null) {
-                Set trackedPlayers = (Set) ReflectionManager.getNmsField("EntityTrackerEntry", "trackedPlayers")
-                        .get(entityTrackerEntry);
+                ProtocolLibrary.getProtocolManager().sendServerPacket(entry.getKey(), getDestroyPacket(ids));
+            }
+        } catch (Exception ex) {
+            ex.printStackTrace();
+        }
 
-                final Method clear = ReflectionManager
-                        .getNmsMethod("EntityTrackerEntry", NmsVersion.v1_14.isSupported() ? "a" : "clear",
-                                ReflectionManager.getNmsClass("EntityPlayer"));
+        if (respawns.isEmpty()) {
+            return;
+        }
 
-                final Method updatePlayer = ReflectionManager
-                        .getNmsMethod("EntityTrackerEntry", NmsVersion.v1_14.isSupported() ? "b" : "updatePlayer",
-                                ReflectionManager.getNmsClass("EntityPlayer"));
+        Bukkit.getScheduler().scheduleSyncDelayedTask(LibsDisguises.getInstance(), () -> {
+            for (Map.Entry<Object, Object> respawn : respawns) {
+                try {
+                    updatePlayer.invoke(respawn.getKey(), respawn.getValue());
+                } catch (Exception ex) {
+                    ex.printStackTrace();
+                }
+            }
+        }, 2);
+    }
 
-                trackedPlayers = (Set) new HashSet(trackedPlayers).clone();
-                PacketContainer destroyPacket = getDestroyPacket(disguise.getEntity().getEntityId());
+    /**
+     * Clears the players tracking this disguise's entity, adding them to the destroy packets and the players to respawn
+     * it for
+     */
+    private static void refreshTrackers(final TargetedDisguise disguise, Method clear,
+            Map<Player, Set<Integer>> destroyed, List<Map.Entry<Object, Object>> respawns) throws Exception {
+        if (selfDisguised.contains(disguise.getEntity().getUniqueId()) && disguise.isDisguiseInUse()) {
+            removeSelfDisguise(disguise);
 
-                for (final Object p : trackedPlayers) {
-                    Player player = (Player) ReflectionManager.getBukkitEntity(p);
+            selfDisguised.add(disguise.getEntity().getUniqueId());
 
-                    if (disguise.getEntity() != player && disguise.canSee(player)) {
-                        clear.invoke(entityTrackerEntry, p);
+            PacketContainer destroyPacket = getDestroyPacket(DisguiseAPI.getSelfDisguiseId());
 
-                        ProtocolLibrary.getProtocolManager().sendServerPacket(player, destroyPacket);
+            ProtocolLibrary.getProtocolManager().sendServerPacket((Player) disguise.getEntity(), destroyPacket);
 
-                        Bukkit.getScheduler().scheduleSyncDelayedTask(LibsDisguises.getInstance(), () -> {
-                            try {
-                                updatePlayer.invoke(entityTrackerEntry, p);
-                            } catch (Exception ex) {
-                                ex.printStackTrace();
-                            }
-                        }, 2);
-                    }
+            Bukkit.getScheduler().scheduleSyncDelayedTask(LibsDisguises.getInstance(), () -> {
+                try {
+                    DisguiseUtilities.sendSelfDisguise((Player) disguise.getEntity(), disguise);
+                } catch (Exception ex) {
+                    ex.printStackTrace();
                 }
+            }, 2);
+        }
+
+        final Object entityTrackerEntry = ReflectionManager.getEntityTrackerEntry(disguise.getEntity());
+
+        if (entityTrackerEntry != null) {
+            Set trackedPlayers = (Set) ReflectionManager.getNmsField("EntityTrackerEntry", "trackedPlayers")
+                    .get(entityTrackerEntry);
+
+            trackedPlayers = (Set) new HashSet(trackedPlayers).clone();
+            int entityId = disguise.getEntity().getEntityId();
+
+            for (final Object p : trackedPlayers) {
+                Player player = (Player) ReflectionManager.getBukkitEntity(p);
+
+                if (disguise.getEntity() == player || !disguise.canSee(player)) {
+                    continue;
+                }
+
+                // Another disguise on the same entity already refreshed it for this player
+                if (!destroyed.computeIfAbsent(player, key -> new LinkedHashSet<>()).add(entityId)) {
+                    continue;
+                }
+
+                clear.invoke(entityTrackerEntry, p);
+                respawns.add(new AbstractMap.SimpleEntry<>(entityTrackerEntry, p));
             }
-        } catch (Exception ex) {
-            ex.printStackTrace();
         }
     }
 
@@ -1554,15 +1830,7 @@ public class DisguiseUtilities {
     }
 
     public static void removeGameProfile(String string) {
-        cachedNames.remove(string.toLowerCase(Locale.ENGLISH));
-
-        if (!profileCache.exists()) {
-            profileCache.mkdirs();
-        }
-
-        File file = new File(profileCache, string.toLowerCase(Locale.ENGLISH));
-
-        file.delete();
+        gameProfileCache.remove(string);
     }
 
     public static void removeSelfDisguise(Disguise disguise) {
@@ -1677,11 +1945,16 @@ public class DisguiseUtilities {
         throw new IllegalStateException("Lib's Disguises unable to find a unique team name!");
     }
 
+    public static DScoreTeam getExtendedName(String teamName) {
+        return extendedNames.get(teamName);
+    }
+
     public static void updateExtendedName(PlayerDisguise disguise) {
         DScoreTeam exName = disguise.getScoreboardName();
 
         if (exName.getTeamName() == null) {
             exName.setTeamName(getUniqueTeam());
+            extendedNames.put(exName.getTeamName(), exName);
         }
 
         for (Scoreboard board : getAllScoreboards()) {
@@ -1696,6 +1969,8 @@ public class DisguiseUtilities {
             exName.setTeamName(getUniqueTeam());
         }
 
+        extendedNames.put(exName.getTeamName(), exName);
+
         for (Scoreboard board : getAllScoreboards()) {
             exName.handleTeam(board, disguise.isNameVisible());
         }
@@ -1734,6 +2009,7 @@ public class DisguiseUtilities {
             t.unregister();
         }
 
+        extendedNames.remove(removed.getScoreboardName().getTeamName(), removed.getScoreboardName());
         removed.getScoreboardName().setTeamName(null);
     }
 
@@ -2328,11 +2604,19 @@ public class DisguiseUtilities {
     }
 
     public static String quoteHex(String string) {
-        return string.replaceAll("(<)(#[0-9a-fA-F]{6}>)", "$1\\$2");
+        if (string.indexOf('<') < 0) {
+            return string;
+        }
+
+        return quoteHexPattern.matcher(string).replaceAll("$1\\$2");
     }
 
     public static String unquoteHex(String string) {
-        return string.replaceAll("(<)\\\\(#[0-9a-fA-F]{6}>)", "$1$2");
+        if (string.indexOf('<') < 0) {
+            return string;
+        }
+
+        return unquoteHexPattern.matcher(string).replaceAll("$1$2");
     }
 
     public static void sendMessage(CommandSender sender, String message) {
@@ -2425,10 +2709,79 @@ public class DisguiseUtilities {
         return builder.toString();
     }
 
+    private static class ColoredChat {
+        private final BaseComponent[] components;
+        private String json;
+
+        private ColoredChat(BaseComponent[] components) {
+            this.components = components;
+        }
+
+        private String getJson() {
+            if (json == null) {
+                json = ComponentSerializer.toString(components);
+            }
+
+            return json;
+        }
+    }
+
+    private static ColoredChat getCachedColoredChat(String message) {
+        ColoredChat chat = coloredChatCache.get(message);
+
+        if (chat == null) {
+            chat = new ColoredChat(createColoredChat(message));
+
+            coloredChatCache.put(message, chat);
+        }
+
+        return chat;
+    }
+
     /**
-     * Modification of TextComponent.fromLegacyText
+     * A copy of the cached components, so they can be modified
      */
     public static BaseComponent[] getColoredChat(String message) {
+        BaseComponent[] components = getCachedColoredChat(message).components;
+        BaseComponent[] copy = new BaseComponent[components.length];
+
+        for (int i = 0; i < components.length; i++) {
+            copy[i] = components[i].duplicate();
+        }
+
+        return copy;
+    }
+
+    /**
+     * The serialized json of {@link #getColoredChat(String)}, cached
+     */
+    public static String getColoredChatJson(String message) {
+        return getCachedColoredChat(message).getJson();
+    }
+
+    /**
+     * If there's a hex color such as {@literal <#ff00ff>} at this position
+     */
+    private static boolean isHexColor(String message, int start) {
+        if (message.charAt(start) != '<' || message.charAt(start + 1) != '#' || message.charAt(start + 8) != '>') {
+            return false;
+        }
+
+        for (int i = start + 2; i < start + 8; i++) {
+            char c = message.charAt(i);
+
+            if ((c < '0' || c > '9') && (c < 'a' || c > 'f') && (c < 'A' || c > 'F')) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Modification of TextComponent.fromLegacyText
+     */
+    private static BaseComponent[] createColoredChat(String message) {
         if (message.isEmpty()) {
             return new BaseComponent[0];
         }
@@ -2443,7 +2796,7 @@ public class DisguiseUtilities {
             TextComponent old;
 
             if (c == ChatColor.COLOR_CHAR || (c == '<' && i + 9 < message.length() && NmsVersion.v1_16.isSupported() &&
-                    Pattern.matches("<#[0-9a-fA-F]{6}>", message.substring(i, i + 9)))) {
+                    isHexColor(message, i))) {
                 // If normal color char
                 if (c == ChatColor.COLOR_CHAR) {
                     ++i;
@@ -2606,13 +2959,19 @@ public class DisguiseUtilities {
         PacketContainer addTab = new PacketContainer(PacketType.Play.Server.PLAYER_INFO);
 
         addTab.getPlayerInfoAction().write(0, action);
-        addTab.getPlayerInfoDataLists().write(0, Collections.singletonList(
-                new PlayerInfoData(disguise.getGameProfile(), 0, EnumWrappers.NativeGameMode.SURVIVAL,
-                        WrappedChatComponent.fromText(disguise.getName()))));
+        addTab.getPlayerInfoDataLists().write(0, Collections.singletonList(getTabInfo(disguise)));
 
         return addTab;
     }
 
+    /**
+     * The disguise's entry in the tab list, as sent by {@link #getTabPacket}
+     */
+    public static PlayerInfoData getTabInfo(PlayerDisguise disguise) {
+        return new PlayerInfoData(disguise.getGameProfile(), 0, EnumWrappers.NativeGameMode.SURVIVAL,
+                WrappedChatComponent.fromText(disguise.getName()));
+    }
+
     /**
      * Setup it so he can see himself when disguised
      *
@@ -2906,8 +3265,7 @@ public class DisguiseUtilities {
                 Object name;
 
                 if (NmsVersion.v1_13.isSupported()) {
-                    name = Optional.of(WrappedChatComponent
-                            .fromJson(ComponentSerializer.toString(DisguiseUtilities.getColoredChat(newNames[i]))));
+                    name = Optional.of(WrappedChatComponent.fromJson(getColoredChatJson(newNames[i])));
                 } else {
                     name = newNames[i];
                 }
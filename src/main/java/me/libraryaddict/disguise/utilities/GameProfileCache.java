@@ -0,0 +1,317 @@
+package me.libraryaddict.disguise.utilities;
+
+import com.comphenix.protocol.wrappers.WrappedGameProfile;
+import com.google.gson.JsonSyntaxException;
+import me.libraryaddict.disguise.utilities.reflection.ReflectionManager;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The game profiles saved in a folder, a file per name. The most recently used profiles are kept in memory, and
+ * writes and deletes are done on another thread.
+ * <p>
+ * Names are always lowercase.
+ * <p>
+ * Each profile knows when it was fetched, kept as the last modified time of its file. Old profiles are still used,
+ * and {@link #tryRefresh(String, long, int)} decides which of them should be fetched again.
+ */
+public class GameProfileCache {
+    private static final int MAX_CACHED = 1000;
+
+    private final File folder;
+    /**
+     * Every name that has a profile, on disk or waiting to be written
+     */
+    private final Set<String> names = ConcurrentHashMap.newKeySet();
+    private final Map<String, WrappedGameProfile> cached =
+            Collections.synchronizedMap(new LinkedHashMap<String, WrappedGameProfile>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, WrappedGameProfile> eldest) {
+                    return size() > MAX_CACHED;
+                }
+            });
+    /**
+     * The json of profiles waiting to be written
+     */
+    private final ConcurrentHashMap<String, String> pending = new ConcurrentHashMap<>();
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "Lib's Disguises Profile Writer");
+        thread.setDaemon(true);
+
+        return thread;
+    });
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    /**
+     * When each profile was fetched
+     */
+    private final ConcurrentHashMap<String, Long> fetched = new ConcurrentHashMap<>();
+    /**
+     * When each profile was last refreshed, so a refresh that failed isn't tried again straight away
+     */
+    private final ConcurrentHashMap<String, Long> refreshed = new ConcurrentHashMap<>();
+    private long refreshWindowStart;
+    private int refreshesInWindow;
+
+    public GameProfileCache(File folder) {
+        this.folder = folder;
+    }
+
+    public void load() {
+        if (!folder.exists()) {
+            folder.mkdirs();
+        }
+
+        File[] files = folder.listFiles();
+
+        if (files == null) {
+            return;
+        }
+
+        for (File file : files) {
+            // Left over from a write that never finished
+            if (file.getName().endsWith(".tmp")) {
+                file.delete();
+                continue;
+            }
+
+            names.add(file.getName());
+            fetched.put(file.getName(), file.lastModified());
+        }
+    }
+
+    public boolean has(String name) {
+        return names.contains(name.toLowerCase(Locale.ENGLISH));
+    }
+
+    /**
+     * @return A copy of the profile, or null if there is none
+     */
+    public WrappedGameProfile get(String name) {
+        name = name.toLowerCase(Locale.ENGLISH);
+
+        if (!names.contains(name)) {
+            return null;
+        }
+
+        WrappedGameProfile profile = cached.get(name);
+
+        if (profile != null) {
+            hits.incrementAndGet();
+            return copy(profile);
+        }
+
+        misses.incrementAndGet();
+
+        String json = pending.get(name);
+        File file = new File(folder, name);
+
+        try {
+            if (json == null) {
+                if (!file.exists()) {
+                    // Could have been written while checking
+                    if (!pending.containsKey(name)) {
+                        names.remove(name);
+                    }
+
+                    return null;
+                }
+
+                json = new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8).trim();
+            }
+
+            profile = DisguiseUtilities.getGson().fromJson(json, WrappedGameProfile.class);
+
+            if (profile == null) {
+                return null;
+            }
+
+            cached.put(name, profile);
+
+            return copy(profile);
+        } catch (JsonSyntaxException ex) {
+            DisguiseUtilities.getLogger()
+                    .warning("Gameprofile " + file.getName() + " had invalid gson and has been deleted");
+            remove(name);
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+
+        return null;
+    }
+
+    public void add(String name, WrappedGameProfile profile) {
+        name = name.toLowerCase(Locale.ENGLISH);
+
+        profile = copy(profile);
+
+        pending.put(name, DisguiseUtilities.getGson().toJson(profile));
+        names.add(name);
+        cached.put(name, profile);
+        fetched.put(name, System.currentTimeMillis());
+
+        write(name);
+    }
+
+    public void remove(String name) {
+        name = name.toLowerCase(Locale.ENGLISH);
+
+        names.remove(name);
+        pending.remove(name);
+        cached.remove(name);
+        fetched.remove(name);
+        refreshed.remove(name);
+
+        write(name);
+    }
+
+    private void write(String name) {
+        if (executor.isShutdown()) {
+            writeNow(name);
+            return;
+        }
+
+        executor.execute(() -> writeNow(name));
+    }
+
+    /**
+     * Write the latest state of the profile, so the order the writes are done in doesn't matter
+     */
+    private void writeNow(String name) {
+        File file = new File(folder, name);
+        String json = pending.get(name);
+
+        if (json == null) {
+            if (!names.contains(name)) {
+                file.delete();
+            }
+
+            return;
+        }
+
+        if (!folder.exists()) {
+            folder.mkdirs();
+        }
+
+        // Written to another file first, so the profile can't be read half written
+        File temp = new File(folder, name + ".tmp");
+
+        try {
+            Files.write(temp.toPath(), json.getBytes(StandardCharsets.UTF_8));
+
+            Long fetchedAt = fetched.get(name);
+
+            if (fetchedAt != null) {
+                temp.setLastModified(fetchedAt);
+            }
+
+            Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            DisguiseUtilities.getLogger().severe("Unable to save the game profile " + name);
+            e.printStackTrace();
+        }
+
+        pending.remove(name, json);
+    }
+
+    /**
+     * Write everything that's waiting before returning, anything written after is written straight away
+     */
+    public void shutdown() {
+        executor.shutdown();
+
+        try {
+            if (!executor.awaitTermination(10, TimeUnit.SECONDS)) {
+                DisguiseUtilities.getLogger().warning("Took too long to write the game profiles in the background");
+            }
+        } catch (InterruptedException e) {
+            e.printStackTrace();
+        }
+
+        for (String name : pending.keySet()) {
+            writeNow(name);
+        }
+    }
+
+    /**
+     * @return When the profile was fetched, or 0 if there is none
+     */
+    public long getFetched(String name) {
+        return fetched.getOrDefault(name.toLowerCase(Locale.ENGLISH), 0L);
+    }
+
+    /**
+     * If the profile is older than maxAge and wasn't refreshed in that time either, and there's been less than
+     * maxPerMinute refreshes in the last minute, then it's marked as refreshed and should be fetched again
+     *
+     * @param maxAge How many milliseconds until a profile is old
+     * @return If the profile should be fetched again
+     */
+    public boolean tryRefresh(String name, long maxAge, int maxPerMinute) {
+        name = name.toLowerCase(Locale.ENGLISH);
+
+        if (maxAge <= 0 || maxPerMinute <= 0 || !names.contains(name)) {
+            return false;
+        }
+
+        long now = System.currentTimeMillis();
+
+        synchronized (refreshed) {
+            long lastFetched = Math.max(getFetched(name), refreshed.getOrDefault(name, 0L));
+
+            if (lastFetched + maxAge > now) {
+                return false;
+            }
+
+            if (refreshWindowStart + TimeUnit.MINUTES.toMillis(1) <= now) {
+                refreshWindowStart = now;
+                refreshesInWindow = 0;
+            }
+
+            if (refreshesInWindow >= maxPerMinute) {
+                return false;
+            }
+
+            refreshesInWindow++;
+            refreshed.put(name, now);
+        }
+
+        return true;
+    }
+
+    private WrappedGameProfile copy(WrappedGameProfile profile) {
+        return ReflectionManager.getGameProfileWithThisSkin(profile.getUUID(), profile.getName(), profile);
+    }
+
+    public int getCachedSize() {
+        return cached.size();
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * @return How many of the lookups for a saved profile didn't need to read the disk, from 0 to 1
+     */
+    public double getHitRatio() {
+        long hits = getHits();
+        long total = hits + getMisses();
+
+        return total == 0 ? 0 : (double) hits / total;
+    }
+}
@@ -0,0 +1,218 @@
+package me.libraryaddict.disguise.utilities;
+
+import com.comphenix.protocol.wrappers.WrappedGameProfile;
+import me.libraryaddict.disguise.utilities.reflection.LibsProfileLookup;
+
+import java.util.*;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Collects the names to look up over a short window, then looks them up a batch at a time so 40 names is a few
+ * requests instead of 40.
+ * <p>
+ * Names are case insensitive, and a name that's already being looked up will just have the callback added to it.
+ */
+public class ProfileLookupQueue {
+    public interface ProfileRepository {
+        /**
+         * Called off the main thread
+         *
+         * @return The profiles by their lowercase name, names that weren't found can be left out
+         */
+        Map<String, WrappedGameProfile> lookup(String[] names) throws Exception;
+    }
+
+    /**
+     * How many names are given to the repository at once
+     */
+    public static final int BATCH_SIZE = 10;
+
+    private final ProfileRepository repository;
+    private final long window;
+    /**
+     * Where the callbacks are run, the main thread in the plugin
+     */
+    private final Executor callbackExecutor;
+    private final ScheduledExecutorService executor;
+    /**
+     * The names waiting for the next batch, by their lowercase name
+     */
+    private final LinkedHashMap<String, String> queued = new LinkedHashMap<>();
+    private final HashMap<String, ArrayList<LibsProfileLookup>> callbacks = new HashMap<>();
+    private boolean scheduled;
+    private final AtomicLong lookups = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+
+    public ProfileLookupQueue(ProfileRepository repository, long window, int threads, Executor callbackExecutor) {
+        this.repository = repository;
+        this.window = window;
+        this.callbackExecutor = callbackExecutor;
+
+        AtomicInteger threadId = new AtomicInteger();
+
+        ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(threads, runnable -> {
+            Thread thread = new Thread(runnable, "Lib's Disguises Profile Lookup #" + threadId.incrementAndGet());
+            thread.setDaemon(true);
+
+            return thread;
+        });
+
+        executor.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+        this.executor = executor;
+    }
+
+    public synchronized boolean isLookingUp(String name) {
+        return callbacks.containsKey(name.toLowerCase(Locale.ENGLISH));
+    }
+
+    /**
+     * Looks up the name, or adds the callback to the lookup already running for it. The callbacks are run in the
+     * order they were added, with null if the name couldn't be found
+     *
+     * @return If a new lookup was started
+     */
+    public synchronized boolean lookup(String name, LibsProfileLookup callback) {
+        return addLookup(name, callback, false);
+    }
+
+    /**
+     * Looks up the name if it isn't already being looked up. The callback is only added to a lookup this started, so
+     * something that only needs doing once per lookup isn't done again by everything waiting on it
+     *
+     * @return If a new lookup was started
+     */
+    public synchronized boolean startLookup(String name, LibsProfileLookup callback) {
+        return addLookup(name, callback, true);
+    }
+
+    private boolean addLookup(String name, LibsProfileLookup callback, boolean onlyIfStarted) {
+        String lowerName = name.toLowerCase(Locale.ENGLISH);
+        ArrayList<LibsProfileLookup> list = callbacks.get(lowerName);
+        boolean added = list == null;
+
+        if (!added && onlyIfStarted) {
+            return false;
+        }
+
+        if (added) {
+            callbacks.put(lowerName, list = new ArrayList<>());
+            queued.put(lowerName, name);
+            lookups.incrementAndGet();
+
+            if (!scheduled) {
+                scheduled = true;
+                executor.schedule(this::flush, window, TimeUnit.MILLISECONDS);
+            }
+        }
+
+        if (callback != null) {
+            list.add(callback);
+        }
+
+        return added;
+    }
+
+    private void flush() {
+        ArrayList<String> names;
+
+        synchronized (this) {
+            scheduled = false;
+            names = new ArrayList<>(queued.values());
+            queued.clear();
+        }
+
+        for (int i = 0; i < names.size(); i += BATCH_SIZE) {
+            String[] batch = names.subList(i, Math.min(names.size(), i + BATCH_SIZE)).toArray(new String[0]);
+
+            batches.incrementAndGet();
+
+            // The first batch is done on this thread, the rest are spread over the pool
+            if (i == 0) {
+                lookupBatch(batch);
+            } else {
+                executor.execute(() -> lookupBatch(batch));
+            }
+        }
+    }
+
+    private void lookupBatch(String[] names) {
+        Map<String, WrappedGameProfile> profiles = null;
+        Exception error = null;
+
+        try {
+            profiles = repository.lookup(names);
+        } catch (Exception e) {
+            // The callbacks are still run, with null as the names couldn't be found
+            error = e;
+        }
+
+        Map<String, WrappedGameProfile> found = profiles;
+        boolean posted = false;
+
+        try {
+            callbackExecutor.execute(() -> {
+                for (String name : names) {
+                    String lowerName = name.toLowerCase(Locale.ENGLISH);
+                    ArrayList<LibsProfileLookup> list;
+
+                    synchronized (this) {
+                        list = callbacks.remove(lowerName);
+                    }
+
+                    if (list == null) {
+                        continue;
+                    }
+
+                    WrappedGameProfile profile = found == null ? null : found.get(lowerName);
+
+                    for (LibsProfileLookup callback : list) {
+                        callback.onLookup(profile);
+                    }
+                }
+            });
+
+            posted = true;
+        } finally {
+            // The callbacks can't be posted once the plugin is disabled, the names would never be looked up again
+            if (!posted) {
+                synchronized (this) {
+                    for (String name : names) {
+                        callbacks.remove(name.toLowerCase(Locale.ENGLISH));
+                    }
+                }
+            }
+        }
+
+        if (error != null) {
+            DisguiseUtilities.getLogger()
+                    .severe("Error when fetching " + String.join(", ", names) + "'s uuid from mojang: " +
+                            error.getMessage());
+        }
+    }
+
+    /**
+     * How many names were looked up
+     */
+    public long getLookups() {
+        return lookups.get();
+    }
+
+    /**
+     * How many requests were made to look up those names
+     */
+    public long getBatches() {
+        return batches.get();
+    }
+
+    /**
+     * Anything still waiting is dropped
+     */
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
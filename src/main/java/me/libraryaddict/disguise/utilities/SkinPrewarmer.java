@@ -0,0 +1,157 @@
+package me.libraryaddict.disguise.utilities;
+
+import com.comphenix.protocol.wrappers.WrappedGameProfile;
+import me.libraryaddict.disguise.DisguiseConfig;
+import me.libraryaddict.disguise.LibsDisguises;
+import me.libraryaddict.disguise.disguisetypes.Disguise;
+import me.libraryaddict.disguise.disguisetypes.PlayerDisguise;
+import org.bukkit.scheduler.BukkitRunnable;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Looks up the skins used by the custom disguises in the background after they're loaded, so the first time one is
+ * used it already has the skin saved.
+ * <p>
+ * Only a few lookups are waiting at once, so if it takes longer than the timeout it stops looking up more and the rest
+ * are looked up when they're first used.
+ */
+public class SkinPrewarmer extends BukkitRunnable {
+    private static final Pattern namePattern = Pattern.compile("([A-Za-z0-9_]){1,16}");
+    private static SkinPrewarmer running;
+
+    private final LinkedList<String> toLookup;
+    private final int total;
+    private final long started = System.currentTimeMillis();
+    private final long timeout;
+    private int waiting;
+    private int done;
+    private int failed;
+    private long lastReport = started;
+
+    private SkinPrewarmer(Collection<String> names, long timeout) {
+        this.toLookup = new LinkedList<>(names);
+        this.total = names.size();
+        this.timeout = timeout;
+    }
+
+    /**
+     * Starts looking up the skins for these custom disguises, stopping the last prewarm if it's still going
+     *
+     * @param customDisguises The custom disguises that were parsed when loaded, those with placeholders can't be known
+     */
+    public static void start(Collection<Disguise> customDisguises) {
+        if (running != null) {
+            running.cancel();
+            running = null;
+        }
+
+        if (!DisguiseConfig.isPrewarmSkins() || !DisguiseConfig.isSaveGameProfiles() ||
+                !LibsDisguises.getInstance().getConfig().getBoolean("ContactMojangServers", true)) {
+            return;
+        }
+
+        Set<String> names = getSkinNames(customDisguises);
+
+        if (names.isEmpty()) {
+            return;
+        }
+
+        DisguiseUtilities.getLogger().info("Looking up " + names.size() + " skin" + (names.size() == 1 ? "" : "s") +
+                " used by custom disguises in the background");
+
+        running = new SkinPrewarmer(names, TimeUnit.SECONDS.toMillis(DisguiseConfig.getPrewarmSkinsTimeout()));
+        running.runTaskTimer(LibsDisguises.getInstance(), 1, 20);
+    }
+
+    /**
+     * @return The names of the skins the player disguises use that haven't been saved yet
+     */
+    private static Set<String> getSkinNames(Collection<Disguise> customDisguises) {
+        Set<String> names = new LinkedHashSet<>();
+
+        for (Disguise disguise : customDisguises) {
+            if (!disguise.isPlayerDisguise()) {
+                continue;
+            }
+
+            PlayerDisguise playerDisguise = (PlayerDisguise) disguise;
+            String skin = playerDisguise.getSkin() != null ? playerDisguise.getSkin() : playerDisguise.getName();
+
+            if (skin == null || !namePattern.matcher(skin).matches() || DisguiseUtilities.hasGameProfile(skin)) {
+                continue;
+            }
+
+            names.add(skin.toLowerCase(Locale.ENGLISH));
+        }
+
+        return names;
+    }
+
+    @Override
+    public void run() {
+        long now = System.currentTimeMillis();
+
+        if (now - started > timeout) {
+            finish(true);
+            return;
+        }
+
+        // Only add more once the last lookups are done, so the timeout can stop it without much left waiting
+        while (waiting < ProfileLookupQueue.BATCH_SIZE * 2 && !toLookup.isEmpty()) {
+            String name = toLookup.poll();
+            waiting++;
+
+            WrappedGameProfile profile = DisguiseUtilities.getProfileFromMojang(name, gameProfile -> {
+                if (running != this) {
+                    return;
+                }
+
+                waiting--;
+
+                if (gameProfile != null) {
+                    done++;
+                } else {
+                    failed++;
+                }
+            });
+
+            if (profile != null) {
+                waiting--;
+                done++;
+            }
+        }
+
+        if (toLookup.isEmpty() && waiting <= 0) {
+            finish(false);
+            return;
+        }
+
+        if (now - lastReport >= TimeUnit.SECONDS.toMillis(10)) {
+            lastReport = now;
+
+            DisguiseUtilities.getLogger().info("Looked up " + done + "/" + total + " custom disguise skins");
+        }
+    }
+
+    private void finish(boolean timedOut) {
+        cancel();
+        running = null;
+
+        long seconds = TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis() - started);
+
+        if (timedOut) {
+            DisguiseUtilities.getLogger().info("Stopped looking up custom disguise skins after " + seconds + "s, " +
+                    done + "/" + total + " were done. The rest will be looked up when they're used");
+        } else {
+            DisguiseUtilities.getLogger()
+                    .info("Looked up " + done + "/" + total + " custom disguise skins in " + seconds + "s");
+        }
+
+        if (failed > 0) {
+            DisguiseUtilities.getLogger().warning("Failed to look up " + failed + " custom disguise skins");
+        }
+    }
+}
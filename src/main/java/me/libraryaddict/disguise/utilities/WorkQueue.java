@@ -0,0 +1,150 @@
+package me.libraryaddict.disguise.utilities;
+
+import me.libraryaddict.disguise.DisguiseConfig;
+import me.libraryaddict.disguise.LibsDisguises;
+import me.libraryaddict.disguise.utilities.translations.LibsMsg;
+import org.bukkit.Bukkit;
+import org.bukkit.command.CommandSender;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * Runs work that touches a lot of disguises at once, such as disguising everything in a radius, over as many ticks as
+ * it needs. Each tick only spends {@link DisguiseConfig#getMassOperationTickBudget()} milliseconds on it.
+ * <p>
+ * Jobs are run in the order they were added. If nothing else is queued, a job starts straight away so a small job is
+ * finished before the method returns, just like it was before there was a queue.
+ */
+public class WorkQueue {
+    private static final LinkedList<Job<?>> jobs = new LinkedList<>();
+    private static BukkitTask task;
+    private static boolean running;
+    private static int ranThisTick;
+
+    private static class Job<T> {
+        private final CommandSender sender;
+        private final LinkedList<T> items;
+        private final Predicate<T> action;
+        private final Runnable onFinish;
+        private final int total;
+        private long lastReport;
+
+        private Job(CommandSender sender, Collection<T> items, Predicate<T> action, Runnable onFinish) {
+            this.sender = sender;
+            this.items = new LinkedList<>(items);
+            this.action = action;
+            this.onFinish = onFinish;
+            this.total = items.size();
+        }
+
+        /**
+         * @return If the job has finished, or was stopped
+         */
+        private boolean run(long stopAt) {
+            // Always does one thing a tick, so a job can't be stuck behind a slow server
+            while (!items.isEmpty()) {
+                if (ranThisTick > 0 && System.nanoTime() >= stopAt) {
+                    return false;
+                }
+
+                ranThisTick++;
+
+                if (!action.test(items.poll())) {
+                    return true;
+                }
+            }
+
+            if (onFinish != null) {
+                onFinish.run();
+            }
+
+            return true;
+        }
+
+        private void report() {
+            long now = System.currentTimeMillis();
+
+            if (sender == null || now - lastReport < TimeUnit.SECONDS.toMillis(2)) {
+                return;
+            }
+
+            lastReport = now;
+
+            LibsMsg.MASS_PROGRESS.send(sender, total - items.size(), total);
+        }
+    }
+
+    /**
+     * Runs the action on each of these once it's their turn
+     *
+     * @param sender   Told how far along it is if it takes more than a tick, can be null
+     * @param action   Returns false to stop the job early, onFinish won't be called
+     * @param onFinish Called once everything has been done, can be null
+     */
+    public static <T> void submit(CommandSender sender, Collection<T> items, Predicate<T> action, Runnable onFinish) {
+        jobs.add(new Job<>(sender, items, action, onFinish));
+
+        // If something's queued already, it'll get to this after
+        if (task == null && !running) {
+            runTick();
+        }
+    }
+
+    public static <T> void submit(Collection<T> items, Consumer<T> action) {
+        submit(null, items, item -> {
+            action.accept(item);
+            return true;
+        }, null);
+    }
+
+    /**
+     * Calls this once everything queued before it has been done
+     */
+    public static void runAfter(Runnable runnable) {
+        submit(null, Collections.emptyList(), item -> true, runnable);
+    }
+
+    private static void runTick() {
+        int budget = DisguiseConfig.getMassOperationTickBudget();
+        long stopAt = budget <= 0 ? Long.MAX_VALUE : System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(budget);
+
+        running = true;
+        ranThisTick = 0;
+
+        // Everything done this tick has its packets sent together
+        DisguiseBatch batch = DisguiseBatch.start();
+
+        try {
+            while (!jobs.isEmpty()) {
+                Job<?> job = jobs.peek();
+
+                try {
+                    if (!job.run(stopAt)) {
+                        job.report();
+                        break;
+                    }
+                } catch (Exception ex) {
+                    ex.printStackTrace();
+                }
+
+                jobs.poll();
+            }
+        } finally {
+            running = false;
+            batch.finish();
+        }
+
+        if (jobs.isEmpty()) {
+            if (task != null) {
+                task.cancel();
+                task = null;
+            }
+        } else if (task == null) {
+            task = Bukkit.getScheduler().runTaskTimer(LibsDisguises.getInstance(), WorkQueue::runTick, 1, 1);
+        }
+    }
+}
@@ -40,7 +40,6 @@ import org.bukkit.event.world.ChunkLoadEvent;
 import org.bukkit.event.world.ChunkUnloadEvent;
 import org.bukkit.event.world.WorldLoadEvent;
 import org.bukkit.event.world.WorldUnloadEvent;
-import org.bukkit.metadata.FixedMetadataValue;
 import org.bukkit.scheduler.BukkitRunnable;
 
 import java.lang.reflect.InvocationTargetException;
@@ -176,15 +175,12 @@ public class DisguiseListener implements Listener {
     }
 
     private boolean canRetaliate(Entity entity) {
-        return entity.hasMetadata("LD-LastAttacked") &&
-                entity.getMetadata("LD-LastAttacked").get(0).asLong() + (DisguiseConfig.getPvPTimer() * 1000) >
-                        System.currentTimeMillis();
+        return DisguiseUtilities.getLastAttacked(entity) + (DisguiseConfig.getPvPTimer() * 1000) >
+                System.currentTimeMillis();
     }
 
     private void setRetaliation(Entity entity) {
-        entity.removeMetadata("LD-LastAttacked", LibsDisguises.getInstance());
-        entity.setMetadata("LD-LastAttacked",
-                new FixedMetadataValue(LibsDisguises.getInstance(), System.currentTimeMillis()));
+        DisguiseUtilities.setLastAttacked(entity);
     }
 
     private void checkPlayerCanFight(EntityDamageByEntityEvent event, Entity attacker) {
@@ -204,8 +200,8 @@ public class DisguiseListener implements Listener {
                     event.setCancelled(true);
 
                     LibsMsg.CANT_ATTACK_DISGUISED.send(attacker);
-                } else if (DisguiseConfig.getPvPTimer() > 0 && attacker.hasMetadata("LastDisguise")) {
-                    long lastDisguised = attacker.getMetadata("LastDisguise").get(0).asLong();
+                } else if (DisguiseConfig.getPvPTimer() > 0) {
+                    long lastDisguised = DisguiseUtilities.getLastUndisguised(attacker);
 
                     if (lastDisguised + DisguiseConfig.getPvPTimer() * 1000 > System.currentTimeMillis()) {
                         event.setCancelled(true);
@@ -281,20 +277,7 @@ public class DisguiseListener implements Listener {
             return;
         }
 
-        for (Entity entity : event.getChunk().getEntities()) {
-            Disguise[] disguises = DisguiseUtilities.getSavedDisguises(entity.getUniqueId(), true);
-
-            if (disguises.length <= 0) {
-                continue;
-            }
-
-            DisguiseUtilities.resetPluginTimer();
-
-            for (Disguise disguise : disguises) {
-                disguise.setEntity(entity);
-                disguise.startDisguise();
-            }
-        }
+        DisguiseUtilities.loadSavedDisguises(event.getChunk());
     }
 
     @EventHandler
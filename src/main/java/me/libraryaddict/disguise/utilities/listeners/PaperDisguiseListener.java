@@ -19,6 +19,10 @@ public class PaperDisguiseListener implements Listener {
 
         Entity entity = event.getEntity();
 
+        // Loaded with its chunk
+        if (DisguiseUtilities.isSavedInChunk(entity))
+            return;
+
         Disguise[] disguises = DisguiseUtilities.getSavedDisguises(entity.getUniqueId(), true);
 
         if (disguises.length <= 0)
@@ -11,6 +11,7 @@ import me.libraryaddict.disguise.utilities.plugin.PluginInformation;
 
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.Map;
 import java.util.Set;
 
 /**
@@ -127,7 +128,7 @@ public class MetricsInitalizer {
         metrics.addCustomChart(new Metrics.SimplePie("custom_disguises") {
             @Override
             public String getValue() {
-                HashMap map = DisguiseConfig.getCustomDisguises();
+                Map map = DisguiseConfig.getCustomDisguises();
 
                 return map.size() + (map.containsKey("libraryaddict") ? -1 : 0) > 0 ? "Yes" : "No";
             }
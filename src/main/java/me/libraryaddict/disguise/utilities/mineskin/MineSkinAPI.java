@@ -1,6 +1,8 @@
 package me.libraryaddict.disguise.utilities.mineskin;
 
+import com.comphenix.protocol.wrappers.WrappedGameProfile;
 import com.google.gson.Gson;
+import me.libraryaddict.disguise.DisguiseConfig;
 import me.libraryaddict.disguise.utilities.DisguiseUtilities;
 import me.libraryaddict.disguise.utilities.SkinUtils;
 import me.libraryaddict.disguise.utilities.translations.LibsMsg;
@@ -11,15 +13,29 @@ import java.net.SocketTimeoutException;
 import java.net.URL;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.LinkedList;
 import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 /**
  * Created by libraryaddict on 28/12/2019.
  * <p>
  * This isn't a stanealone class
+ * <p>
+ * Requests are queued as jobs, and up to {@link DisguiseConfig#getMineSkinConcurrentRequests()} of them are sent at
+ * once. Asking for a skin that's already queued waits on that job instead of sending it again, and skins generated from
+ * an url or file are saved so they're only ever generated once.
  */
 public class MineSkinAPI {
     private class APIError {
@@ -27,14 +43,100 @@ public class MineSkinAPI {
         String error;
     }
 
+    /**
+     * A request that's waiting or being sent, everyone who asked for the same skin waits on it
+     */
+    private static class Job implements SkinUtils.SkinCallback {
+        private final String key;
+        private final boolean cached;
+        private final CountDownLatch done = new CountDownLatch(1);
+        private Runnable request;
+        private MineSkinResponse response;
+        private LibsMsg errorMsg;
+        private Object[] errorArgs;
+        private boolean illegalArgument;
+
+        private Job(String key, boolean cached) {
+            this.key = key;
+            this.cached = cached;
+        }
+
+        @Override
+        public void onError(LibsMsg msg, Object... args) {
+            if (errorMsg == null) {
+                errorMsg = msg;
+                errorArgs = args;
+            }
+        }
+
+        @Override
+        public void onInfo(LibsMsg msg, Object... args) {
+        }
+
+        @Override
+        public void onSuccess(WrappedGameProfile profile) {
+        }
+
+        private MineSkinResponse await(SkinUtils.SkinCallback callback) {
+            try {
+                done.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            }
+
+            if (illegalArgument) {
+                throw new IllegalArgumentException();
+            }
+
+            if (errorMsg != null && callback != null) {
+                callback.onError(errorMsg, errorArgs);
+            }
+
+            return response;
+        }
+    }
+
+    private final String apiUrl;
+    /**
+     * Where the generated skins are kept, by the hash of the url or file they were generated from
+     */
+    private final File cacheFolder;
     /**
      * Time in millis until next request can be made
      */
-    private long nextRequest;
-    private final ReentrantLock lock = new ReentrantLock();
+    private volatile long nextRequest;
+    /**
+     * How long mineskin.org last said to wait between requests, a request reserves this much before it's sent
+     */
+    private long requestDelay;
+    private final Object rateLimit = new Object();
+    private final HashMap<String, Job> jobs = new HashMap<>();
+    private final LinkedList<Job> queued = new LinkedList<>();
+    private int running;
+    private final AtomicInteger requestsSent = new AtomicInteger();
+    private final ExecutorService executor = Executors.newCachedThreadPool(new ThreadFactory() {
+        private final AtomicInteger threadId = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "Lib's Disguises MineSkin #" + threadId.incrementAndGet());
+            thread.setDaemon(true);
+
+            return thread;
+        }
+    });
 
-    public boolean isInUse() {
-        return lock.isLocked();
+    public MineSkinAPI(String apiUrl, File cacheFolder) {
+        this.apiUrl = apiUrl;
+        this.cacheFolder = cacheFolder;
+    }
+
+    /**
+     * If every request that can be sent at once is being sent
+     */
+    public synchronized boolean isInUse() {
+        return running >= getConcurrentRequests();
     }
 
     public int nextRequestIn() {
@@ -47,6 +149,189 @@ public class MineSkinAPI {
         return (int) Math.ceil(timeTillNext / 1000D);
     }
 
+    /**
+     * How many requests were sent to mineskin.org, skins that were cached or already queued aren't counted
+     */
+    public int getRequestsSent() {
+        return requestsSent.get();
+    }
+
+    private int getConcurrentRequests() {
+        return Math.max(1, DisguiseConfig.getMineSkinConcurrentRequests());
+    }
+
+    /**
+     * Queues the job, or returns the job that's already queued for the same key
+     */
+    private synchronized Job submit(String key, boolean cached, Function<Job, MineSkinResponse> request) {
+        Job job = jobs.get(key);
+
+        if (job != null) {
+            return job;
+        }
+
+        Job newJob = job = new Job(key, cached);
+
+        // Shut down, so nothing would ever run it
+        if (executor.isShutdown()) {
+            newJob.done.countDown();
+            return newJob;
+        }
+
+        newJob.request = () -> {
+            try {
+                waitForNextRequest();
+
+                requestsSent.incrementAndGet();
+                newJob.response = request.apply(newJob);
+
+                if (newJob.cached && newJob.response != null && newJob.response.getData() != null) {
+                    saveCached(newJob.key, newJob.response);
+                }
+            } catch (IllegalArgumentException ex) {
+                newJob.illegalArgument = true;
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            } finally {
+                finish(newJob);
+            }
+        };
+
+        jobs.put(key, job);
+        queued.add(job);
+
+        startJobs();
+
+        return job;
+    }
+
+    private synchronized void startJobs() {
+        while (running < getConcurrentRequests() && !queued.isEmpty() && !executor.isShutdown()) {
+            running++;
+            executor.execute(queued.poll().request);
+        }
+    }
+
+    private synchronized void finish(Job job) {
+        running--;
+        jobs.remove(job.key);
+        job.done.countDown();
+
+        startJobs();
+    }
+
+    /**
+     * Requests that are still waiting are dropped, and anything waiting on them is given no response
+     */
+    public synchronized void shutdown() {
+        for (Job job : queued) {
+            jobs.remove(job.key);
+            job.done.countDown();
+        }
+
+        queued.clear();
+        executor.shutdownNow();
+    }
+
+    /**
+     * Requests are started one at a time once mineskin.org says the next request can be made, but are allowed to
+     * overlap. The slot is reserved before the lock is released, so two requests can't both take it before either
+     * has a response
+     */
+    private void waitForNextRequest() throws InterruptedException {
+        synchronized (rateLimit) {
+            long wait;
+
+            while ((wait = nextRequest - System.currentTimeMillis()) > 0) {
+                rateLimit.wait(wait);
+            }
+
+            nextRequest = System.currentTimeMillis() + requestDelay;
+        }
+    }
+
+    /**
+     * Corrects the reserved slot from what mineskin.org said, or how long to back off after an error
+     */
+    private void setNextRequest(long delay, boolean fromResponse) {
+        synchronized (rateLimit) {
+            if (fromResponse) {
+                requestDelay = delay;
+            }
+
+            nextRequest = System.currentTimeMillis() + delay;
+            rateLimit.notifyAll();
+        }
+    }
+
+    private MineSkinResponse getCached(String key) {
+        if (cacheFolder == null) {
+            return null;
+        }
+
+        File file = new File(cacheFolder, key + ".json");
+
+        if (!file.exists()) {
+            return null;
+        }
+
+        try {
+            return new Gson().fromJson(new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8),
+                    MineSkinResponse.class);
+        } catch (Exception ex) {
+            DisguiseUtilities.getLogger().warning("Invalid cached skin " + file.getName() + ", it has been deleted");
+            file.delete();
+        }
+
+        return null;
+    }
+
+    private void saveCached(String key, MineSkinResponse response) {
+        if (cacheFolder == null) {
+            return;
+        }
+
+        cacheFolder.mkdirs();
+
+        File file = new File(cacheFolder, key + ".json");
+        File temp = new File(cacheFolder, key + ".tmp");
+
+        try {
+            Files.write(temp.toPath(), new Gson().toJson(response).getBytes(StandardCharsets.UTF_8));
+            Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException ex) {
+            DisguiseUtilities.getLogger().warning("Unable to cache the skin " + file.getName());
+            ex.printStackTrace();
+        }
+    }
+
+    static String sha256(byte[] bytes) {
+        try {
+            StringBuilder builder = new StringBuilder();
+
+            for (byte b : MessageDigest.getInstance("SHA-256").digest(bytes)) {
+                builder.append(String.format("%02x", b));
+            }
+
+            return builder.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private MineSkinResponse generate(SkinUtils.SkinCallback callback, String key, boolean cached,
+            Function<Job, MineSkinResponse> request) {
+        if (cached) {
+            MineSkinResponse response = getCached(key);
+
+            if (response != null) {
+                return response;
+            }
+        }
+
+        return submit(key, cached, request).await(callback);
+    }
+
     /**
      * Fetches image from the provided url
      *
@@ -54,17 +339,17 @@ public class MineSkinAPI {
      */
     public MineSkinResponse generateFromUrl(SkinUtils.SkinCallback callback, String url,
             SkinUtils.ModelType modelType) {
-        return doPost(callback, "/generate/url", url, null, modelType);
+        String key = sha256(("url:" + modelType + ":" + url).getBytes(StandardCharsets.UTF_8));
+
+        return generate(callback, key, true, job -> doPost(job, "/generate/url", url, null, modelType));
     }
 
     private MineSkinResponse doPost(SkinUtils.SkinCallback callback, String path, String skinUrl, File file,
             SkinUtils.ModelType modelType) {
-        lock.lock();
-
         HttpURLConnection connection = null;
 
         try {
-            URL url = new URL("https://api.mineskin.org" + path);
+            URL url = new URL(apiUrl + path);
             // Creating a connection
             connection = (HttpURLConnection) url.openConnection();
             connection.setRequestProperty("User-Agent", "LibsDisguises");
@@ -151,7 +436,7 @@ public class MineSkinAPI {
 
                 MineSkinResponse skinResponse = new Gson().fromJson(response, MineSkinResponse.class);
 
-                nextRequest = System.currentTimeMillis() + (long) (skinResponse.getNextRequest() * 1000);
+                setNextRequest((long) (skinResponse.getNextRequest() * 1000), true);
 
                 return skinResponse;
             }
@@ -161,7 +446,7 @@ public class MineSkinAPI {
             return null;
         }
         catch (Exception ex) {
-            nextRequest = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(10);
+            setNextRequest(TimeUnit.SECONDS.toMillis(10), false);
 
             try {
                 if (connection != null && (connection.getResponseCode() == 524 || connection.getResponseCode() == 408 ||
@@ -178,18 +463,18 @@ public class MineSkinAPI {
 
             callback.onError(LibsMsg.SKIN_API_FAIL);
         }
-        finally {
-            lock.unlock();
-        }
 
         return null;
     }
 
     public MineSkinResponse generateFromUUID(UUID uuid, SkinUtils.ModelType modelType) throws IllegalArgumentException {
-        lock.lock();
+        // Not cached, they can change their skin
+        return generate(null, "uuid:" + modelType + ":" + uuid, false, job -> doUUID(uuid, modelType));
+    }
 
+    private MineSkinResponse doUUID(UUID uuid, SkinUtils.ModelType modelType) throws IllegalArgumentException {
         try {
-            String siteUrl = "https://api.mineskin.org/generate/user/:" + uuid.toString();
+            String siteUrl = apiUrl + "/generate/user/:" + uuid.toString();
 
             if (modelType == SkinUtils.ModelType.SLIM) {
                 siteUrl += "?model=slim";
@@ -209,13 +494,13 @@ public class MineSkinAPI {
 
                 MineSkinResponse skinResponse = new Gson().fromJson(response, MineSkinResponse.class);
 
-                nextRequest = System.currentTimeMillis() + (long) (skinResponse.getNextRequest() * 1000);
+                setNextRequest((long) (skinResponse.getNextRequest() * 1000), true);
 
                 return skinResponse;
             }
         }
         catch (Exception ex) {
-            nextRequest = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(10);
+            setNextRequest(TimeUnit.SECONDS.toMillis(10), false);
 
             if (ex.getMessage() != null &&
                     ex.getMessage().contains("Server returned HTTP response code: 400 for URL")) {
@@ -225,9 +510,6 @@ public class MineSkinAPI {
             DisguiseUtilities.getLogger().warning("Failed to access MineSkin.org");
             ex.printStackTrace();
         }
-        finally {
-            lock.unlock();
-        }
 
         return null;
     }
@@ -239,6 +521,16 @@ public class MineSkinAPI {
      */
     public MineSkinResponse generateFromFile(SkinUtils.SkinCallback callback, File file,
             SkinUtils.ModelType modelType) {
-        return doPost(callback, "/generate/upload", null, file, modelType);
+        String key;
+
+        try {
+            key = sha256(Files.readAllBytes(file.toPath()));
+        } catch (IOException ex) {
+            throw new IllegalArgumentException(ex);
+        }
+
+        key = sha256(("file:" + modelType + ":" + key).getBytes(StandardCharsets.UTF_8));
+
+        return generate(callback, key, true, job -> doPost(job, "/generate/upload", null, file, modelType));
     }
 }
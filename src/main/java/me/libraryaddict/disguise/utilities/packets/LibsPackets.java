@@ -91,6 +91,7 @@ public class LibsPackets {
     private PacketContainer createPacket(EquipmentSlot slot) {
         // Get what the disguise wants to show for its armor
         ItemStack itemToSend = getDisguise().getWatcher().getItemStack(slot);
+        Object nmsItem;
 
         // If the disguise armor isn't visible
         if (itemToSend == null) {
@@ -100,8 +101,12 @@ public class LibsPackets {
             if (itemToSend == null || itemToSend.getType() == Material.AIR) {
                 return null;
             }
+
+            nmsItem = ReflectionManager.getNmsItem(itemToSend);
         } else if (itemToSend.getType() == Material.AIR) {
             return null;
+        } else {
+            nmsItem = getDisguise().getWatcher().getNmsItem(slot);
         }
 
         PacketContainer packet = new PacketContainer(PacketType.Play.Server.ENTITY_EQUIPMENT);
@@ -112,12 +117,12 @@ public class LibsPackets {
 
         if (NmsVersion.v1_16.isSupported()) {
             List<Pair<Object, Object>> list = new ArrayList<>();
-            list.add(Pair.of(ReflectionManager.createEnumItemSlot(slot), ReflectionManager.getNmsItem(itemToSend)));
+            list.add(Pair.of(ReflectionManager.createEnumItemSlot(slot), nmsItem));
 
             mods.write(1, list);
         } else {
             mods.write(1, ReflectionManager.createEnumItemSlot(slot));
-            mods.write(2, ReflectionManager.getNmsItem(itemToSend));
+            mods.write(2, nmsItem);
         }
 
         return packet;
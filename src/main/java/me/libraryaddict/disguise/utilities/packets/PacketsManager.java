@@ -9,6 +9,7 @@ import me.libraryaddict.disguise.DisguiseConfig;
 import me.libraryaddict.disguise.LibsDisguises;
 import me.libraryaddict.disguise.disguisetypes.Disguise;
 import me.libraryaddict.disguise.utilities.DisguiseUtilities;
+import me.libraryaddict.disguise.utilities.WorkQueue;
 import me.libraryaddict.disguise.utilities.packets.packetlisteners.*;
 import me.libraryaddict.disguise.utilities.reflection.NmsVersion;
 import org.bukkit.Bukkit;
@@ -188,7 +189,12 @@ public class PacketsManager {
                 ProtocolLibrary.getProtocolManager().removePacketListener(viewDisguisesListener);
             }
 
-            for (Player player : Bukkit.getOnlinePlayers()) {
+            // Queued so a reload with a lot of players online doesn't do them all in one tick
+            WorkQueue.submit(new ArrayList<Player>(Bukkit.getOnlinePlayers()), player -> {
+                if (!player.isOnline()) {
+                    return;
+                }
+
                 Disguise disguise = DisguiseAPI.getDisguise(player, player);
 
                 if (disguise != null) {
@@ -205,7 +211,7 @@ public class PacketsManager {
                         }
                     }
                 }
-            }
+            });
         }
     }
 }
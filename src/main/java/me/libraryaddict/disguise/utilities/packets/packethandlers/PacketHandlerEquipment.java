@@ -78,8 +78,7 @@ public class PacketHandlerEquipment implements IPacketHandler {
                     equipPacket.getModifier().write(1, newSlots);
                 }
 
-                newSlots.add(Pair.of(pair.getFirst(),
-                        ReflectionManager.getNmsItem(itemStack.getType() == Material.AIR ? null : itemStack)));
+                newSlots.add(Pair.of(pair.getFirst(), disguise.getWatcher().getNmsItem(slot)));
             } else {
                 newSlots.add(pair);
             }
@@ -155,8 +154,7 @@ public class PacketHandlerEquipment implements IPacketHandler {
 
             packets.addPacket(equipPacket);
 
-            equipPacket.getModifier()
-                    .write(2, ReflectionManager.getNmsItem(itemStack.getType() == Material.AIR ? null : itemStack));
+            equipPacket.getModifier().write(2, disguise.getWatcher().getNmsItem(slot));
         }
 
         if (disguise.getWatcher().isRightClicking() && (slot == EquipmentSlot.HAND || slot == EquipmentSlot.OFF_HAND)) {
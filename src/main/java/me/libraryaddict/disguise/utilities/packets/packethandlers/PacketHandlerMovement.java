@@ -4,7 +4,6 @@ import com.comphenix.protocol.PacketType;
 import com.comphenix.protocol.events.PacketContainer;
 import com.comphenix.protocol.reflect.StructureModifier;
 import me.libraryaddict.disguise.DisguiseAPI;
-import me.libraryaddict.disguise.LibsDisguises;
 import me.libraryaddict.disguise.disguisetypes.Disguise;
 import me.libraryaddict.disguise.disguisetypes.DisguiseType;
 import me.libraryaddict.disguise.disguisetypes.watchers.FallingBlockWatcher;
@@ -17,7 +16,6 @@ import org.bukkit.Location;
 import org.bukkit.entity.AbstractHorse;
 import org.bukkit.entity.Entity;
 import org.bukkit.entity.Player;
-import org.bukkit.metadata.FixedMetadataValue;
 import org.bukkit.util.Vector;
 
 import java.util.ArrayList;
@@ -137,19 +135,17 @@ public class PacketHandlerMovement implements IPacketHandler {
             // When did the rabbit disguise last hop
             long lastHop = 999999;
 
-            // If hop meta exists, set the last hop time
-            if (!entity.getMetadata("LibsRabbitHop").isEmpty()) {
+            // If the disguise has hopped, set the last hop time
+            if (disguise.getLastRabbitHop() != 0) {
                 // Last hop was 3 minutes ago, so subtract current time with the last hop time and get 3
                 // minutes ago in milliseconds
-                lastHop = System.currentTimeMillis() - entity.getMetadata("LibsRabbitHop").get(0).asLong();
+                lastHop = System.currentTimeMillis() - disguise.getLastRabbitHop();
             }
 
             // If last hop was less than 0.1 or more than 0.5 seconds ago
             if (lastHop < 100 || lastHop > 500) {
                 if (lastHop > 500) {
-                    entity.removeMetadata("LibsRabbitHop", LibsDisguises.getInstance());
-                    entity.setMetadata("LibsRabbitHop",
-                            new FixedMetadataValue(LibsDisguises.getInstance(), System.currentTimeMillis()));
+                    disguise.setLastRabbitHop(System.currentTimeMillis());
                 }
 
                 PacketContainer statusPacket = new PacketContainer(PacketType.Play.Server.ENTITY_STATUS);
@@ -34,16 +34,84 @@ import org.bukkit.inventory.EquipmentSlot;
 import org.bukkit.inventory.ItemStack;
 import org.bukkit.util.Vector;
 
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.List;
-import java.util.UUID;
+import java.util.*;
 
 /**
  * Created by libraryaddict on 3/01/2019.
  */
 public class PacketHandlerSpawn implements IPacketHandler {
+    /**
+     * Spawn packets built for a disguise, shared by every observer the disguise spawns for while the disguise and
+     * its entity are unchanged. Such as when a crowded chunk is sent to many players at once
+     */
+    private static class SpawnTemplate {
+        private final FlagWatcher watcher;
+        private final int modifications;
+        private final Location location;
+        private final long created = System.currentTimeMillis();
+        private final ArrayList<PacketContainer> packets = new ArrayList<>();
+        private final HashMap<Integer, ArrayList<PacketContainer>> delayedPackets = new HashMap<>();
+        /**
+         * Player disguises are spawned differently for each observer, so only their metadata is shared
+         */
+        private WrappedDataWatcher playerWatcher;
+
+        public SpawnTemplate(Disguise disguise, Entity entity) {
+            watcher = disguise.getWatcher();
+            modifications = watcher.getModifications();
+            location = entity.getLocation();
+        }
+
+        /**
+         * Only valid for a tick, the entity's own metadata and velocity are also in the packets
+         */
+        public boolean isValid(Disguise disguise, Entity entity) {
+            if (created + 50 < System.currentTimeMillis()) {
+                return false;
+            }
+
+            if (watcher != disguise.getWatcher() || modifications != watcher.getModifications()) {
+                return false;
+            }
+
+            return location.equals(entity.getLocation());
+        }
+
+        public void copyFrom(LibsPackets libsPackets) {
+            for (PacketContainer packet : libsPackets.getPackets()) {
+                packets.add(packet.shallowClone());
+            }
+
+            for (Map.Entry<Integer, ArrayList<PacketContainer>> entry : libsPackets.getDelayedPacketsMap()
+                    .entrySet()) {
+                ArrayList<PacketContainer> delayed = new ArrayList<>();
+
+                for (PacketContainer packet : entry.getValue()) {
+                    delayed.add(packet.shallowClone());
+                }
+
+                delayedPackets.put(entry.getKey(), delayed);
+            }
+        }
+
+        /**
+         * The observers are given copies as self disguises will modify the entity id
+         */
+        public void copyTo(LibsPackets libsPackets) {
+            for (PacketContainer packet : packets) {
+                libsPackets.addPacket(packet.shallowClone());
+            }
+
+            for (Map.Entry<Integer, ArrayList<PacketContainer>> entry : delayedPackets.entrySet()) {
+                for (PacketContainer packet : entry.getValue()) {
+                    libsPackets.addDelayedPacket(packet.shallowClone(), entry.getKey());
+                }
+            }
+        }
+    }
+
     private PacketsHandler packetsHandler;
+    private final Map<Disguise, SpawnTemplate> spawnTemplates = Collections.synchronizedMap(new WeakHashMap<>());
 
     public PacketHandlerSpawn(PacketsHandler packetsHandler) {
         this.packetsHandler = packetsHandler;
@@ -66,7 +134,56 @@ public class PacketHandlerSpawn implements IPacketHandler {
             return;
         }
 
-        constructSpawnPackets(observer, packets, entity);
+        if (!isTemplateUsable(disguise)) {
+            constructSpawnPackets(observer, packets, entity);
+            return;
+        }
+
+        SpawnTemplate template = spawnTemplates.get(disguise);
+
+        if (template == null || !template.isValid(disguise, entity)) {
+            constructSpawnPackets(observer, packets, entity);
+
+            template = new SpawnTemplate(disguise, entity);
+            template.copyFrom(packets);
+
+            spawnTemplates.put(disguise, template);
+            return;
+        }
+
+        template.copyTo(packets);
+    }
+
+    /**
+     * If the spawn packets are the same for every observer
+     */
+    private boolean isTemplateUsable(Disguise disguise) {
+        if (disguise.isPlayerDisguise()) {
+            return false;
+        }
+
+        // The hook will be owned by the observer
+        return disguise.getType() != DisguiseType.FISHING_HOOK || ((MiscDisguise) disguise).getData() != -1;
+    }
+
+    /**
+     * The metadata of a player disguise isn't dependent on the observer, so reuse that where possible
+     */
+    private WrappedDataWatcher getPlayerWatcher(Disguise disguise, Entity disguisedEntity) {
+        SpawnTemplate template = spawnTemplates.get(disguise);
+
+        if (template != null && template.playerWatcher != null && template.isValid(disguise, disguisedEntity)) {
+            return template.playerWatcher;
+        }
+
+        template = new SpawnTemplate(disguise, disguisedEntity);
+        template.playerWatcher = DisguiseUtilities
+                .createSanitizedDataWatcher(WrappedDataWatcher.getEntityWatcher(disguisedEntity),
+                        disguise.getWatcher());
+
+        spawnTemplates.put(disguise, template);
+
+        return template.playerWatcher;
     }
 
     /**
@@ -243,9 +360,7 @@ public class PacketHandlerSpawn implements IPacketHandler {
                 // Set invis
                 toSend.setObject(obj, (byte) 32);
             } else {
-                toSend = DisguiseUtilities
-                        .createSanitizedDataWatcher(WrappedDataWatcher.getEntityWatcher(disguisedEntity),
-                                disguise.getWatcher());
+                toSend = getPlayerWatcher(disguise, disguisedEntity);
             }
 
             if (NmsVersion.v1_15.isSupported()) {
@@ -455,6 +570,7 @@ public class PacketHandlerSpawn implements IPacketHandler {
             for (EquipmentSlot slot : EquipmentSlot.values()) {
                 // Get what the disguise wants to show for its armor
                 ItemStack itemToSend = disguise.getWatcher().getItemStack(slot);
+                Object nmsItem;
 
                 // If the disguise armor isn't visible
                 if (itemToSend == null) {
@@ -464,9 +580,13 @@ public class PacketHandlerSpawn implements IPacketHandler {
                     if (itemToSend == null || itemToSend.getType() == Material.AIR) {
                         continue;
                     }
+
+                    nmsItem = ReflectionManager.getNmsItem(itemToSend);
                 } else if (itemToSend.getType() == Material.AIR) {
                     // Its air which shouldn't be sent
                     continue;
+                } else {
+                    nmsItem = disguise.getWatcher().getNmsItem(slot);
                 }
 
                 PacketContainer packet = new PacketContainer(PacketType.Play.Server.ENTITY_EQUIPMENT);
@@ -477,13 +597,12 @@ public class PacketHandlerSpawn implements IPacketHandler {
 
                 if (NmsVersion.v1_16.isSupported()) {
                     List<Pair<Object, Object>> list = new ArrayList<>();
-                    list.add(Pair.of(ReflectionManager.createEnumItemSlot(slot),
-                            ReflectionManager.getNmsItem(itemToSend)));
+                    list.add(Pair.of(ReflectionManager.createEnumItemSlot(slot), nmsItem));
 
                     mods.write(1, list);
                 } else {
                     mods.write(1, ReflectionManager.createEnumItemSlot(slot));
-                    mods.write(2, ReflectionManager.getNmsItem(itemToSend));
+                    mods.write(2, nmsItem);
                 }
 
                 packets.addDelayedPacket(packet);
@@ -7,14 +7,7 @@ import com.comphenix.protocol.events.PacketEvent;
 import com.comphenix.protocol.reflect.StructureModifier;
 import com.comphenix.protocol.wrappers.WrappedChatComponent;
 import me.libraryaddict.disguise.LibsDisguises;
-import me.libraryaddict.disguise.disguisetypes.Disguise;
-import me.libraryaddict.disguise.disguisetypes.PlayerDisguise;
-import me.libraryaddict.disguise.disguisetypes.TargetedDisguise;
 import me.libraryaddict.disguise.utilities.DisguiseUtilities;
-import net.md_5.bungee.api.chat.BaseComponent;
-import net.md_5.bungee.chat.ComponentSerializer;
-
-import java.util.Set;
 
 /**
  * Created by libraryaddict on 4/07/2020.
@@ -33,25 +26,7 @@ public class PacketListenerScoreboardTeam extends PacketAdapter {
             return;
         }
 
-        DisguiseUtilities.DScoreTeam team = null;
-
-        loop:
-        for (Set<TargetedDisguise> disguises : DisguiseUtilities.getDisguises().values()) {
-            for (Disguise disguise : disguises) {
-                if (!disguise.isPlayerDisguise() || !((PlayerDisguise) disguise).hasScoreboardName()) {
-                    continue;
-                }
-
-                DisguiseUtilities.DScoreTeam t = ((PlayerDisguise) disguise).getScoreboardName();
-
-                if (!name.equals(t.getTeamName())) {
-                    continue;
-                }
-
-                team = t;
-                break loop;
-            }
-        }
+        DisguiseUtilities.DScoreTeam team = DisguiseUtilities.getExtendedName(name);
 
         if (team == null) {
             return;
@@ -59,10 +34,7 @@ public class PacketListenerScoreboardTeam extends PacketAdapter {
 
         StructureModifier<WrappedChatComponent> chats = packet.getChatComponents();
 
-        BaseComponent[] prefix = DisguiseUtilities.getColoredChat(team.getPrefix());
-        BaseComponent[] suffix = DisguiseUtilities.getColoredChat(team.getSuffix());
-
-        chats.write(1, WrappedChatComponent.fromJson(ComponentSerializer.toString(prefix)));
-        chats.write(2, WrappedChatComponent.fromJson(ComponentSerializer.toString(suffix)));
+        chats.write(1, team.getPrefixComponent());
+        chats.write(2, team.getSuffixComponent());
     }
 }
@@ -86,7 +86,7 @@ public class PacketListenerSounds extends PacketAdapter {
                         continue;
                     }
 
-                    entitySound = SoundGroup.getGroup(entity.getType().name());
+                    entitySound = SoundGroup.getGroup(entity.getType());
 
                     if (entitySound == null) {
                         continue;
@@ -202,7 +202,7 @@ public class PacketListenerSounds extends PacketAdapter {
 
             if (!disguise.getType().isPlayer() &&
                     (disguise.isSelfDisguiseSoundsReplaced() || entity != event.getPlayer())) {
-                SoundGroup disSound = SoundGroup.getGroup(entity.getType().name());
+                SoundGroup disSound = SoundGroup.getGroup(entity.getType());
 
                 if (disSound == null) {
                     return;
@@ -19,13 +19,19 @@ import org.bukkit.inventory.ItemStack;
 
 import javax.annotation.Nullable;
 import java.lang.reflect.Method;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Locale;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class ParamInfoManager {
     private static List<ParamInfo> paramList;
     private static DisguiseMethods disguiseMethods;
+    /**
+     * The ParamInfo found for each class, including the classes that don't have one
+     */
+    private static final Map<Class, ParamInfo> classParamInfos = Collections.synchronizedMap(new IdentityHashMap<>());
+    private static final Map<Class<? extends FlagWatcher>, WatcherMethodTable> methodTables =
+            new ConcurrentHashMap<>();
+    private static final WatcherMethodTable emptyMethodTable = new WatcherMethodTable(new Method[0]);
     @Getter
     private static ParamInfoItemBlock paramInfoItemBlock;
     @Getter
@@ -63,6 +69,20 @@ public class ParamInfoManager {
     }
 
     public static ParamInfo getParamInfo(Class c) {
+        synchronized (classParamInfos) {
+            if (classParamInfos.containsKey(c)) {
+                return classParamInfos.get(c);
+            }
+        }
+
+        ParamInfo info = findParamInfo(c);
+
+        classParamInfos.put(c, info);
+
+        return info;
+    }
+
+    private static ParamInfo findParamInfo(Class c) {
         for (ParamInfo info : getParamInfos()) {
             if (!info.isParam(c)) {
                 continue;
@@ -79,14 +99,10 @@ public class ParamInfoManager {
     }
 
     public static ParamInfo getParamInfo(DisguiseType disguiseType, String methodName) {
-        for (Method method : getDisguiseWatcherMethods(disguiseType.getWatcherClass())) {
-            if (!method.getName().toLowerCase(Locale.ENGLISH).equals(methodName.toLowerCase(Locale.ENGLISH)))
-                continue;
+        WatcherMethodTable table = getMethodTable(disguiseType.getWatcherClass());
+        Method method = table.getMethod(methodName);
 
-            return getParamInfo(method);
-        }
-
-        return null;
+        return method == null ? null : table.getParamInfo(method);
     }
 
     static {
@@ -101,10 +117,22 @@ public class ParamInfoManager {
     }
 
     public static Method[] getDisguiseWatcherMethods(@Nullable Class<? extends FlagWatcher> watcherClass) {
+        return getMethodTable(watcherClass).getMethods().toArray(new Method[0]);
+    }
+
+    /**
+     * @return The methods of this watcher, worked out the first time the watcher is used
+     */
+    public static WatcherMethodTable getMethodTable(@Nullable Class<? extends FlagWatcher> watcherClass) {
         if (watcherClass == null) {
-            return new Method[0];
+            return emptyMethodTable;
         }
 
+        return methodTables.computeIfAbsent(watcherClass,
+                key -> new WatcherMethodTable(findDisguiseWatcherMethods(key)));
+    }
+
+    private static Method[] findDisguiseWatcherMethods(Class<? extends FlagWatcher> watcherClass) {
         ArrayList<Method> methods = new ArrayList<>(disguiseMethods.getMethods(watcherClass));
 
         // Order first by their declaring class, the top class (SheepWatcher) goes before (FlagWatcher)
@@ -0,0 +1,72 @@
+package me.libraryaddict.disguise.utilities.params;
+
+import java.lang.reflect.Method;
+import java.util.*;
+
+/**
+ * The methods that can be used on a watcher in the order they're presented, looked up once per watcher class instead
+ * of every time an option is parsed
+ */
+public class WatcherMethodTable {
+    private final List<Method> methods;
+    /**
+     * The methods by their lowercase name, overloads are in the same order as they are in {@link #methods}
+     */
+    private final Map<String, List<Method>> byName;
+    private final Map<Method, ParamInfo> paramInfos;
+
+    WatcherMethodTable(Method[] methods) {
+        this.methods = Collections.unmodifiableList(Arrays.asList(methods.clone()));
+
+        HashMap<String, List<Method>> names = new HashMap<>();
+        HashMap<Method, ParamInfo> infos = new HashMap<>();
+
+        for (Method method : methods) {
+            names.computeIfAbsent(method.getName().toLowerCase(Locale.ENGLISH), key -> new ArrayList<>()).add(method);
+            infos.put(method, ParamInfoManager.getParamInfo(method));
+        }
+
+        HashMap<String, List<Method>> byName = new HashMap<>();
+
+        for (Map.Entry<String, List<Method>> entry : names.entrySet()) {
+            byName.put(entry.getKey(), Collections.unmodifiableList(entry.getValue()));
+        }
+
+        this.byName = Collections.unmodifiableMap(byName);
+        this.paramInfos = Collections.unmodifiableMap(infos);
+    }
+
+    /**
+     * @return Every method in the order they're presented, this can't be modified as it's shared
+     */
+    public List<Method> getMethods() {
+        return methods;
+    }
+
+    /**
+     * @param methodName Case insensitive
+     * @return Every method by that name, this can't be modified as it's shared
+     */
+    public List<Method> getMethods(String methodName) {
+        if (methodName == null) {
+            return Collections.emptyList();
+        }
+
+        return byName.getOrDefault(methodName.toLowerCase(Locale.ENGLISH), Collections.emptyList());
+    }
+
+    /**
+     * @return The first method by that name, or null
+     */
+    public Method getMethod(String methodName) {
+        List<Method> found = getMethods(methodName);
+
+        return found.isEmpty() ? null : found.get(0);
+    }
+
+    public ParamInfo getParamInfo(Method method) {
+        ParamInfo info = paramInfos.get(method);
+
+        return info != null ? info : ParamInfoManager.getParamInfo(method);
+    }
+}
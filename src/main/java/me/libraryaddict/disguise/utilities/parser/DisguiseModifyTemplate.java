@@ -0,0 +1,58 @@
+package me.libraryaddict.disguise.utilities.parser;
+
+import me.libraryaddict.disguise.disguisetypes.Disguise;
+import org.bukkit.command.CommandSender;
+import org.bukkit.entity.Entity;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Options that are parsed once and then used to modify many disguises, used by the radius commands.
+ * <p>
+ * The options are parsed again only for a disguise type that hasn't been seen yet, or an entity that would have the
+ * target placeholders replaced with something different.
+ */
+public class DisguiseModifyTemplate {
+    private final CommandSender sender;
+    private final String permNode;
+    private final String[] args;
+    private final DisguisePermissions permissions;
+    private final TargetPlaceholders placeholders;
+    private final HashMap<String, List<Map.Entry<Method, Object>>> parsed = new HashMap<>();
+
+    public DisguiseModifyTemplate(CommandSender sender, String permNode, String[] args,
+                                  DisguisePermissions permissions) {
+        this.sender = sender;
+        this.permNode = permNode;
+        this.args = args;
+        this.permissions = permissions;
+        this.placeholders = new TargetPlaceholders(args);
+    }
+
+    /**
+     * Modifies the disguise the same as {@link DisguiseParser#callMethods} would with the placeholders for this target
+     */
+    public void modify(Disguise disguise, Entity target)
+            throws DisguiseParseException, IllegalAccessException, InvocationTargetException {
+        String key = disguise.getType() + ":" + disguise.getWatcher().getClass().getName() + ":" +
+                placeholders.getKey(target);
+        List<Map.Entry<Method, Object>> toCall = parsed.get(key);
+
+        if (toCall == null) {
+            String[] tempArgs = DisguiseParser.parsePlaceholders(args.clone(), sender, target);
+
+            toCall = DisguiseParser
+                    .parseMethods(sender, disguise, permissions, new DisguisePerm(disguise.getType()),
+                            new ArrayList<>(), tempArgs, permNode);
+
+            parsed.put(key, toCall);
+        }
+
+        DisguiseParser.applyMethods(disguise, toCall);
+    }
+}
@@ -9,6 +9,8 @@ import me.libraryaddict.disguise.utilities.modded.ModdedEntity;
 import me.libraryaddict.disguise.utilities.modded.ModdedManager;
 import me.libraryaddict.disguise.utilities.params.ParamInfo;
 import me.libraryaddict.disguise.utilities.params.ParamInfoManager;
+import me.libraryaddict.disguise.utilities.params.WatcherMethodTable;
+import me.libraryaddict.disguise.utilities.reflection.MethodInvokers;
 import me.libraryaddict.disguise.utilities.reflection.NmsVersion;
 import me.libraryaddict.disguise.utilities.reflection.ReflectionManager;
 import me.libraryaddict.disguise.utilities.translations.LibsMsg;
@@ -26,17 +28,38 @@ import org.bukkit.inventory.ItemStack;
 import org.bukkit.permissions.PermissionAttachmentInfo;
 import org.bukkit.potion.PotionEffectType;
 
+import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
 import java.util.*;
 import java.util.Map.Entry;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 
 public class DisguiseParser {
     /**
      * <Setter, <Getter, DefaultValue>>
      */
     private static HashMap<Method, Map.Entry<Method, Object>> defaultWatcherValues = new HashMap<>();
+    /**
+     * The metadata read by the getter of each setter, if that's all it reads. While none of it is set on a watcher,
+     * the getter is known to return the default. A null value means the getter must always be compared
+     */
+    private static HashMap<Method, MetaIndex[]> defaultWatcherMetadata = new HashMap<>();
+    /**
+     * FlagWatcher.recordedMetadata, what a getter reads is recorded in this while it's set on a watcher
+     */
+    private static final Field recordedMetadata;
+
+    static {
+        try {
+            recordedMetadata = FlagWatcher.class.getDeclaredField("recordedMetadata");
+            recordedMetadata.setAccessible(true);
+        } catch (NoSuchFieldException e) {
+            throw new IllegalStateException(e);
+        }
+    }
 
     public static void createDefaultMethods() {
         try {
@@ -115,10 +138,14 @@ public class DisguiseParser {
                             invokeWith = disguise;
                         }
 
-                        defaultValue = getMethod.invoke(invokeWith);
+                        defaultValue = MethodInvokers.getGetter(getMethod).apply(invokeWith);
                     }
 
                     addWatcherDefault(setMethod, getMethod, defaultValue);
+                    addWatcherMetadata(setMethod, getMethod, watcher);
+
+                    // Generate the setter now instead of when it's first used
+                    MethodInvokers.getSetter(setMethod);
                 }
             }
         } catch (InstantiationException | IllegalAccessException | InvocationTargetException | NoSuchMethodException e) {
@@ -138,6 +165,13 @@ public class DisguiseParser {
      * Not outputting skin information is not garanteed to display the correct player name
      */
     public static String parseToString(Disguise disguise, boolean outputSkinData) {
+        return parseToString(disguise, outputSkinData, true);
+    }
+
+    /**
+     * @param skipUnset If getters that only read metadata that isn't set are skipped, the output is the same either way
+     */
+    static String parseToString(Disguise disguise, boolean outputSkinData, boolean skipUnset) {
         try {
             StringBuilder stringBuilder = new StringBuilder();
 
@@ -147,10 +181,10 @@ public class DisguiseParser {
                 stringBuilder.append(" ").append(DisguiseUtilities.quote(((PlayerDisguise) disguise).getName()));
             }
 
-            Method[] methods = ParamInfoManager.getDisguiseWatcherMethods(disguise.getType().getWatcherClass());
+            List<Method> methods = ParamInfoManager.getMethodTable(disguise.getType().getWatcherClass()).getMethods();
 
-            for (int i = methods.length - 1; i >= 0; i--) {
-                Method m = methods[i];
+            for (int i = methods.size() - 1; i >= 0; i--) {
+                Method m = methods.get(i);
 
                 // Special handling for this method
                 if (m.getName().equals("addPotionEffect")) {
@@ -179,9 +213,16 @@ public class DisguiseParser {
                     continue;
                 }
 
+                MetaIndex[] metadata = defaultWatcherMetadata.get(m);
+
+                // None of what the getter reads has been set, so it's still the default
+                if (skipUnset && metadata != null && !disguise.getWatcher().hasAnyValue(metadata)) {
+                    continue;
+                }
+
                 Object invokeWith = m.getDeclaringClass().isInstance(disguise) ? disguise : disguise.getWatcher();
 
-                Object ourValue = entry.getKey().invoke(invokeWith);
+                Object ourValue = MethodInvokers.getGetter(entry.getKey()).apply(invokeWith);
 
                 // Escape a hacky fix for custom names, disguised players with custom names don't want to show it
                 // so it was set to an empty string.
@@ -230,13 +271,79 @@ public class DisguiseParser {
             }
 
             return stringBuilder.toString();
-        } catch (IllegalAccessException | InvocationTargetException | NoSuchMethodException e) {
+        } catch (IllegalAccessException | InvocationTargetException | NoSuchMethodException | RuntimeException e) {
+            // The invokers throw what the getter threw, instead of wrapping it like reflection did
             e.printStackTrace();
         }
 
         return null;
     }
 
+    private static void addWatcherMetadata(Method setMethod, Method getMethod, FlagWatcher watcher)
+            throws IllegalAccessException {
+        MetaIndex[] read = null;
+
+        // Random values are always output, and a getter in a class with its own fields may be reading those
+        if (!setMethod.isAnnotationPresent(RandomDefaultValue.class) &&
+                FlagWatcher.class.isAssignableFrom(getMethod.getDeclaringClass()) &&
+                !hasInstanceFields(getMethod.getDeclaringClass())) {
+            Function<Object, Object> getter = MethodInvokers.getGetter(getMethod);
+
+            read = getMetadataRead(watcher, getter);
+        }
+
+        // Another watcher using the same method may have read different metadata
+        if (defaultWatcherMetadata.containsKey(setMethod)) {
+            MetaIndex[] existing = defaultWatcherMetadata.get(setMethod);
+
+            if (existing != null && read != null) {
+                LinkedHashSet<MetaIndex> union = new LinkedHashSet<>(Arrays.asList(existing));
+                union.addAll(Arrays.asList(read));
+
+                read = union.toArray(new MetaIndex[0]);
+            } else {
+                read = null;
+            }
+        }
+
+        defaultWatcherMetadata.put(setMethod, read);
+    }
+
+    /**
+     * Runs the getter and records what it read, the watcher must not be used by anything else while it does
+     *
+     * @return The metadata the getter read, or null if it read anything else such as the equipment or disguise. A
+     * getter that only reads metadata returns the same value for as long as none of that metadata is set
+     */
+    static MetaIndex[] getMetadataRead(FlagWatcher watcher, Function<Object, Object> getter)
+            throws IllegalAccessException {
+        Set<MetaIndex> read = new HashSet<>();
+
+        recordedMetadata.set(watcher, read);
+
+        try {
+            getter.apply(watcher);
+        } finally {
+            recordedMetadata.set(watcher, null);
+        }
+
+        if (read.isEmpty() || read.contains(null)) {
+            return null;
+        }
+
+        return read.toArray(new MetaIndex[0]);
+    }
+
+    private static boolean hasInstanceFields(Class c) {
+        for (Field field : c.getDeclaredFields()) {
+            if (!Modifier.isStatic(field.getModifiers()) && !field.isSynthetic()) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
     private static void addWatcherDefault(Method setMethod, Method getMethod, Object object) {
         if (defaultWatcherValues.containsKey(setMethod)) {
             Object dObj = defaultWatcherValues.get(setMethod).getValue();
@@ -361,7 +468,7 @@ public class DisguiseParser {
      * Get perms for the node. Returns a hashmap of allowed disguisetypes and their options
      */
     public static DisguisePermissions getPermissions(CommandSender sender, String commandName) {
-        return new DisguisePermissions(sender, commandName);
+        return DisguisePermissions.getPermissions(sender, commandName);
     }
 
     private static boolean isDouble(String string) {
@@ -427,7 +534,7 @@ public class DisguiseParser {
         return entity.getName();
     }
 
-    private static String getSkin(CommandSender entity) {
+    static String getSkin(CommandSender entity) {
         if (entity == null) {
             return "??";
         }
@@ -449,7 +556,7 @@ public class DisguiseParser {
                 getEntityEquipment(user), getEntityEquipment(target));
     }
 
-    private static EntityEquipment getEntityEquipment(CommandSender entity) {
+    static EntityEquipment getEntityEquipment(CommandSender entity) {
         return entity instanceof LivingEntity ? ((LivingEntity) entity).getEquipment() : null;
     }
 
@@ -606,7 +713,7 @@ public class DisguiseParser {
         }
 
         DisguiseParser.callMethods(Bukkit.getConsoleSender(), disguise,
-                new DisguisePermissions(Bukkit.getConsoleSender(), "disguise"), new DisguisePerm(disguise.getType()),
+                getPermissions(Bukkit.getConsoleSender(), "disguise"), new DisguisePerm(disguise.getType()),
                 new ArrayList<>(), params, "Disguise");
     }
 
@@ -633,7 +740,7 @@ public class DisguiseParser {
     public static Disguise parseDisguise(CommandSender sender, Entity target, String disguise)
             throws IllegalAccessException, InvocationTargetException, DisguiseParseException {
         return parseDisguise(sender, target, "disguise", DisguiseUtilities.split(disguise),
-                new DisguisePermissions(Bukkit.getConsoleSender(), "disguise"));
+                getPermissions(Bukkit.getConsoleSender(), "disguise"));
     }
 
     /**
@@ -912,7 +1019,23 @@ public class DisguiseParser {
                                    DisguisePerm disguisePerm, Collection<String> usedOptions, String[] args,
                                    String permNode)
             throws IllegalAccessException, IllegalArgumentException, InvocationTargetException, DisguiseParseException {
-        Method[] methods = ParamInfoManager.getDisguiseWatcherMethods(disguise.getWatcher().getClass());
+        applyMethods(disguise,
+                parseMethods(sender, disguise, disguisePermission, disguisePerm, usedOptions, args, permNode));
+    }
+
+    /**
+     * Does everything {@link #callMethods} does without calling the methods, so the same options can be applied to
+     * other disguises using the same watcher
+     *
+     * @return The methods to call and what to call them with, in order
+     */
+    public static List<Entry<Method, Object>> parseMethods(CommandSender sender, Disguise disguise,
+                                                           DisguisePermissions disguisePermission,
+                                                           DisguisePerm disguisePerm, Collection<String> usedOptions,
+                                                           String[] args, String permNode)
+            throws DisguiseParseException {
+        List<Entry<Method, Object>> toCall = new ArrayList<>();
+        WatcherMethodTable methodTable = ParamInfoManager.getMethodTable(disguise.getWatcher().getClass());
         List<String> list = new ArrayList<>(Arrays.asList(args));
         HashMap<String, HashMap<String, Boolean>> disguiseOptions = getDisguiseOptions(sender, permNode, disguisePerm);
 
@@ -926,12 +1049,8 @@ public class DisguiseParser {
             Object valueToSet = null;
             DisguiseParseException parseException = null;
 
-            for (Method method : methods) {
-                if (!method.getName().equalsIgnoreCase(methodNameJava)) {
-                    continue;
-                }
-
-                ParamInfo paramInfo = ParamInfoManager.getParamInfo(method);
+            for (Method method : methodTable.getMethods(methodNameJava)) {
+                ParamInfo paramInfo = methodTable.getParamInfo(method);
 
                 try {
                     // Store how many args there were before calling the param
@@ -995,11 +1114,51 @@ public class DisguiseParser {
                 valueToSet = DisguiseUtilities.quoteNewLine((String) valueToSet);
             }
 
-            if (FlagWatcher.class.isAssignableFrom(methodToUse.getDeclaringClass())) {
-                methodToUse.invoke(disguise.getWatcher(), valueToSet);
-            } else {
-                methodToUse.invoke(disguise, valueToSet);
+            toCall.add(new AbstractMap.SimpleEntry<>(methodToUse, valueToSet));
+        }
+
+        return toCall;
+    }
+
+    /**
+     * Calls the methods from {@link #parseMethods}, the values that can be changed are copied so they can be used
+     * again
+     */
+    public static void applyMethods(Disguise disguise, List<Entry<Method, Object>> toCall)
+            throws IllegalAccessException, InvocationTargetException {
+        for (Entry<Method, Object> entry : toCall) {
+            Method method = entry.getKey();
+            Object value = copyValue(entry.getValue());
+            Object invokeWith =
+                    FlagWatcher.class.isAssignableFrom(method.getDeclaringClass()) ? disguise.getWatcher() : disguise;
+
+            try {
+                MethodInvokers.getSetter(method).accept(invokeWith, value);
+            } catch (RuntimeException ex) {
+                throw new InvocationTargetException(ex);
             }
         }
     }
+
+    /**
+     * Copies the values that a setter could keep and then have changed. The other values are immutable, or are
+     * already copied by their setter such as the game profile of a player disguise
+     */
+    private static Object copyValue(Object value) {
+        if (NmsVersion.v1_13.isSupported() && value instanceof BlockData) {
+            return ((BlockData) value).clone();
+        } else if (value instanceof ItemStack) {
+            return ((ItemStack) value).clone();
+        } else if (value instanceof ItemStack[]) {
+            ItemStack[] items = ((ItemStack[]) value).clone();
+
+            for (int i = 0; i < items.length; i++) {
+                items[i] = items[i] == null ? null : items[i].clone();
+            }
+
+            return items;
+        }
+
+        return value;
+    }
 }
@@ -2,6 +2,7 @@ package me.libraryaddict.disguise.utilities.parser;
 
 import me.libraryaddict.disguise.DisguiseConfig;
 import me.libraryaddict.disguise.disguisetypes.DisguiseType;
+import me.libraryaddict.disguise.utilities.modded.ModdedManager;
 import org.bukkit.entity.Ageable;
 import org.bukkit.entity.Animals;
 import org.bukkit.entity.Monster;
@@ -10,6 +11,7 @@ import org.bukkit.permissions.Permissible;
 import org.bukkit.permissions.PermissionAttachmentInfo;
 
 import java.util.*;
+import java.util.function.Supplier;
 
 /**
  * Created by libraryaddict on 14/10/2018.
@@ -30,8 +32,73 @@ public class DisguisePermissions {
         }
     }
 
+    /**
+     * The disguises the permission nodes can name, rebuilt when the custom or modded disguises change
+     */
+    private static class PermissionIndex {
+        private final Map<DisguisePerm, String> customDisguises;
+        private final int moddedDisguises;
+        private final DisguisePerm[] disguisePerms;
+        /**
+         * Disguises by their lowercase name without spaces or underscores
+         */
+        private final HashMap<String, DisguisePerm> byName = new HashMap<>();
+        /**
+         * Ranges such as animal, to the disguises they cover. Names that aren't a range are stored as null
+         */
+        private final HashMap<String, ParsedRange> ranges = new HashMap<>();
+
+        private PermissionIndex(Map<DisguisePerm, String> customDisguises, int moddedDisguises) {
+            this.customDisguises = customDisguises;
+            this.moddedDisguises = moddedDisguises;
+            this.disguisePerms = DisguiseParser.getDisguisePerms();
+
+            // The first disguise by that name wins, same as DisguiseParser.getDisguisePerm
+            for (DisguisePerm perm : disguisePerms) {
+                byName.putIfAbsent(getIndexName(perm.toReadable()), perm);
+            }
+
+            byName.putIfAbsent("p", byName.get(getIndexName(DisguiseType.PLAYER.toReadable())));
+        }
+
+        private static String getIndexName(String name) {
+            return name.replaceAll("[ |_]", "").toLowerCase(Locale.ENGLISH);
+        }
+
+        private boolean isCurrent() {
+            return customDisguises == DisguiseConfig.getCustomDisguises() &&
+                    moddedDisguises == ModdedManager.getDisguiseTypes().size();
+        }
+
+        private DisguisePerm getDisguisePerm(String name) {
+            return byName.get(getIndexName(name));
+        }
+    }
+
+    private static class ParsedRange {
+        private final Set<DisguisePerm> disguisePerms;
+        private final byte inheritance;
+
+        private ParsedRange(Set<DisguisePerm> disguisePerms, byte inheritance) {
+            this.disguisePerms = disguisePerms;
+            this.inheritance = inheritance;
+        }
+    }
+
+    private static PermissionIndex permissionIndex;
+    /**
+     * The permissions last calculated for each command, reused until the permission holder's permissions change
+     */
+    private static final Map<Permissible, HashMap<String, DisguisePermissions>> cachedPermissions =
+            new WeakHashMap<>();
+    /**
+     * Permissions by the command, the type of permission holder and their nodes. So everyone with the same
+     * permissions shares the same permissions, and the same tab completions
+     */
+    private static final Map<List<Object>, DisguisePermissions> sharedPermissions = new HashMap<>();
+
     private class ParsedPermission {
-        private Vector<DisguisePerm> disguisePerm;
+        private Set<DisguisePerm> disguisePerm;
         private HashMap<String, Boolean> options;
         private boolean negated;
         /**
@@ -44,9 +111,9 @@ public class DisguisePermissions {
         private byte inheritance;
         private boolean wildcardCommand;
 
-        public ParsedPermission(DisguisePerm[] disguisePerm, HashMap<String, Boolean> options, byte inheritance,
+        public ParsedPermission(Set<DisguisePerm> disguisePerm, HashMap<String, Boolean> options, byte inheritance,
                                 boolean wildcardCommand) {
-            this.disguisePerm = new Vector<>(Arrays.asList(disguisePerm));
+            this.disguisePerm = disguisePerm;
             this.options = options;
             this.inheritance = inheritance;
             this.wildcardCommand = wildcardCommand;
@@ -98,16 +165,137 @@ public class DisguisePermissions {
     }
 
     /**
-     * List of PermissionStorage that the permission holder is able to use
+     * The PermissionStorage of each disguise that the permission holder is able to use
+     */
+    private Map<DisguisePerm, PermissionStorage> disguises = new LinkedHashMap<>();
+    /**
+     * What these permissions were calculated from, to tell if they're still correct
      */
-    private List<PermissionStorage> disguises = new ArrayList<>();
+    private final PermissionIndex index;
+    private final Map<String, Boolean> permissionNodes;
+    private final boolean op;
+    private final boolean explicitPermissions;
+    private final boolean disabledInvisibility;
+    /**
+     * Tab completions that depend only on these permissions, the most recently used are kept
+     */
+    private final Map<String, List<String>> tabCompletions = new LinkedHashMap<String, List<String>>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, List<String>> eldest) {
+            return size() > 64;
+        }
+    };
 
     /**
      * @param permissionHolder The permissions to check
      * @param commandName      A lowercase string consisting of the name of one of Lib's Disguises commands
      */
     public DisguisePermissions(Permissible permissionHolder, String commandName) {
-        loadPermissions(permissionHolder, commandName.toLowerCase(Locale.ENGLISH));
+        this(permissionHolder, commandName.toLowerCase(Locale.ENGLISH),
+                getPermissionNodes(permissionHolder, commandName.toLowerCase(Locale.ENGLISH)));
+    }
+
+    private DisguisePermissions(Permissible permissionHolder, String commandName, Map<String, Boolean> nodes) {
+        this.index = getPermissionIndex();
+        this.permissionNodes = nodes;
+        this.op = permissionHolder.isOp();
+        this.explicitPermissions = DisguiseConfig.isExplicitDisguisePermissions();
+        this.disabledInvisibility = DisguiseConfig.isDisabledInvisibility();
+
+        loadPermissions(permissionHolder, commandName, nodes);
+    }
+
+    /**
+     * Returns the permissions last calculated for this permission holder and command if nothing they depend on has
+     * changed, otherwise calculates them again.
+     * <p>
+     * Only the Lib's Disguises nodes are compared, so this is much cheaper than calculating the permissions
+     *
+     * @param permissionHolder The permissions to check
+     * @param commandName      The name of one of Lib's Disguises commands
+     */
+    public static DisguisePermissions getPermissions(Permissible permissionHolder, String commandName) {
+        commandName = commandName.toLowerCase(Locale.ENGLISH);
+        Map<String, Boolean> nodes = getPermissionNodes(permissionHolder, commandName);
+        DisguisePermissions permissions;
+
+        synchronized (cachedPermissions) {
+            HashMap<String, DisguisePermissions> commands = cachedPermissions.get(permissionHolder);
+
+            permissions = commands == null ? null : commands.get(commandName);
+        }
+
+        if (permissions != null && permissions.isCurrent(permissionHolder, nodes)) {
+            return permissions;
+        }
+
+        List<Object> sharedKey = Arrays.asList(commandName, permissionHolder instanceof Player,
+                permissionHolder.isOp(), nodes);
+
+        synchronized (cachedPermissions) {
+            permissions = sharedPermissions.get(sharedKey);
+        }
+
+        if (permissions == null || !permissions.isCurrent(permissionHolder, nodes)) {
+            permissions = new DisguisePermissions(permissionHolder, commandName, nodes);
+        }
+
+        synchronized (cachedPermissions) {
+            // Permission sets that are no longer used would otherwise build up
+            if (sharedPermissions.size() > 1000) {
+                sharedPermissions.clear();
+            }
+
+            sharedPermissions.put(sharedKey, permissions);
+            cachedPermissions.computeIfAbsent(permissionHolder, key -> new HashMap<>()).put(commandName, permissions);
+        }
+
+        return permissions;
+    }
+
+    /**
+     * Forgets the cached permissions, so they're calculated again when next used
+     */
+    public static void clearCache() {
+        synchronized (cachedPermissions) {
+            cachedPermissions.clear();
+            sharedPermissions.clear();
+        }
+    }
+
+    /**
+     * Tab completions that only depend on these permissions are worked out once, then shared by everyone with the
+     * same permissions until their permissions change or the config is reloaded
+     *
+     * @param key  What the tab completions are for
+     * @param tabs Creates the tab completions if they're not cached
+     * @return The tab completions, which can't be modified
+     */
+    public List<String> getTabCompletions(String key, Supplier<List<String>> tabs) {
+        synchronized (tabCompletions) {
+            List<String> list = tabCompletions.get(key);
+
+            if (list == null) {
+                tabCompletions.put(key, list = Collections.unmodifiableList(new ArrayList<>(tabs.get())));
+            }
+
+            return list;
+        }
+    }
+
+    private static synchronized PermissionIndex getPermissionIndex() {
+        if (permissionIndex == null || !permissionIndex.isCurrent()) {
+            permissionIndex = new PermissionIndex(DisguiseConfig.getCustomDisguises(),
+                    ModdedManager.getDisguiseTypes().size());
+        }
+
+        return permissionIndex;
+    }
+
+    private boolean isCurrent(Permissible permissionHolder, Map<String, Boolean> nodes) {
+        return index.isCurrent() && op == permissionHolder.isOp() &&
+                explicitPermissions == DisguiseConfig.isExplicitDisguisePermissions() &&
+                disabledInvisibility == DisguiseConfig.isDisabledInvisibility() && permissionNodes.equals(nodes);
     }
 
     /**
@@ -120,13 +308,7 @@ public class DisguisePermissions {
     public Collection<DisguisePerm> getAllowed() {
         ArrayList<DisguisePerm> list = new ArrayList<>();
 
-        for (PermissionStorage allowed : disguises) {
-            if (list.contains(allowed.getDisguise())) {
-                continue;
-            }
-
-            list.add(allowed.getDisguise());
-        }
+        list.addAll(disguises.keySet());
 
         list.sort((perm1, perm2) -> String.CASE_INSENSITIVE_ORDER.compare(perm1.toReadable(), perm2.toReadable()));
 
@@ -141,18 +323,37 @@ public class DisguisePermissions {
 
         HashMap<String, Boolean> options = getOptions(permission);
 
-        DisguisePerm dPerm = DisguiseParser.getDisguisePerm(disguiseName);
+        DisguisePerm dPerm = index.getDisguisePerm(disguiseName);
 
         // If this refers to a specific disguise
         if (dPerm != null) {
-            return new ParsedPermission(new DisguisePerm[]{dPerm}, options, (byte) 0, split[1].equals("*"));
+            return new ParsedPermission(Collections.singleton(dPerm), options, (byte) 0, split[1].equals("*"));
         }
 
         // If the disguise can't be found, it may be refering to a range
-        List<DisguisePerm> disguisePerms = new ArrayList<>();
+        ParsedRange range;
+
+        synchronized (index) {
+            if (index.ranges.containsKey(disguiseName)) {
+                range = index.ranges.get(disguiseName);
+            } else {
+                index.ranges.put(disguiseName, range = getRange(disguiseName));
+            }
+        }
+
+        // If there were no disguises that can be found by that name
+        if (range == null) {
+            return null;
+        }
+
+        return new ParsedPermission(range.disguisePerms, options, range.inheritance, split[1].equals("*"));
+    }
+
+    private ParsedRange getRange(String disguiseName) {
+        Set<DisguisePerm> disguisePerms = new HashSet<>();
         int inheritance = 0;
 
-        for (DisguisePerm disguisePerm : DisguiseParser.getDisguisePerms()) {
+        for (DisguisePerm disguisePerm : index.disguisePerms) {
             int inherit = getInheritance(disguisePerm, disguiseName);
 
             if (inherit < 0) {
@@ -164,30 +365,17 @@ public class DisguisePermissions {
             disguisePerms.add(disguisePerm);
         }
 
-        // If there were no disguises that can be found by that name
         if (disguisePerms.isEmpty()) {
             return null;
         }
 
-        return new ParsedPermission(disguisePerms.toArray(new DisguisePerm[0]), options, (byte) inheritance,
-                split[1].equals("*"));
+        return new ParsedRange(disguisePerms, (byte) inheritance);
     }
 
     /**
-     * Calculate permissions.
-     * <p>
-     * A specified disguise (cow) and disguise range (animal) differs in that
-     * A disguise range cannot negate a specific disguise, players will be allowed to use cow if animal is negated
-     * <p>
-     * Options on a permission limits the player, if the options start with a - then only those options can't be used
-     * on a disguise
-     * If they're using multiple permissions targetting the same disguise, it attempts to check for a permission that
-     * can be used with the provided requirements
-     * If a permission is negated, then unless specifically permitted, those permissions can't be used. It obeys the
-     * laws of ranges and specific disguises
+     * @return The Lib's Disguises permission nodes that can affect this command, and if they're set or negated
      */
-    private void loadPermissions(Permissible sender, String commandName) {
-        String permissionNode = "libsdisguises." + commandName + ".";
+    private static Map<String, Boolean> getPermissionNodes(Permissible sender, String commandName) {
         Map<String, Boolean> permissions = new HashMap<>();
 
         // If the command sender is OP, then this will work even as the below code doesn't
@@ -198,6 +386,11 @@ public class DisguisePermissions {
         }
 
         for (PermissionAttachmentInfo permission : sender.getEffectivePermissions()) {
+            // Skip anything that isn't a lib's disguises permission before doing any more work on it
+            if (!permission.getPermission().regionMatches(true, 0, "libsdisguises.", 0, 14)) {
+                continue;
+            }
+
             String perm = permission.getPermission().toLowerCase(Locale.ENGLISH);
 
             String[] split = perm.split("\\.");
@@ -207,11 +400,6 @@ public class DisguisePermissions {
                 continue;
             }
 
-            // If this is not a lib's disguises permission
-            if (!split[0].equals("libsdisguises")) {
-                continue;
-            }
-
             // If the command name does not match
             if (!split[1].equals("*") && !split[1].equals(commandName)) {
                 continue;
@@ -225,6 +413,23 @@ public class DisguisePermissions {
             permissions.put(perm, permission.getValue());
         }
 
+        return permissions;
+    }
+
+    /**
+     * Calculate permissions.
+     * <p>
+     * A specified disguise (cow) and disguise range (animal) differs in that
+     * A disguise range cannot negate a specific disguise, players will be allowed to use cow if animal is negated
+     * <p>
+     * Options on a permission limits the player, if the options start with a - then only those options can't be used
+     * on a disguise
+     * If they're using multiple permissions targetting the same disguise, it attempts to check for a permission that
+     * can be used with the provided requirements
+     * If a permission is negated, then unless specifically permitted, those permissions can't be used. It obeys the
+     * laws of ranges and specific disguises
+     */
+    private void loadPermissions(Permissible sender, String commandName, Map<String, Boolean> permissions) {
         // First get all the disguises that can be affected
         // Then load all the permissions we can
         // Each time there's a parent permission set, the child inherits unless specified in a child of that parent
@@ -286,7 +491,7 @@ public class DisguisePermissions {
             return t2.getInheritance() - t1.getInheritance();
         });
 
-        for (DisguisePerm disguisePerm : DisguiseParser.getDisguisePerms()) {
+        for (DisguisePerm disguisePerm : index.disguisePerms) {
             // Use boolean instead of setting to null, to inherit
             boolean disabled = true;
             PermissionStorage storage = new PermissionStorage(disguisePerm);
@@ -387,7 +592,7 @@ public class DisguisePermissions {
                 storage.negatedOptions.add("setYModifier");
             }
 
-            disguises.add(storage);
+            disguises.putIfAbsent(disguisePerm, storage);
         }
     }
 
@@ -489,7 +694,6 @@ public class DisguisePermissions {
     }
 
     private PermissionStorage getStorage(DisguisePerm disguisePerm) {
-        return disguises.stream().filter(disguise -> disguise.getDisguise().equals(disguisePerm)).findAny()
-                .orElse(null);
+        return disguises.get(disguisePerm);
     }
 }
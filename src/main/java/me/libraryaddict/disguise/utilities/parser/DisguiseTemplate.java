@@ -0,0 +1,80 @@
+package me.libraryaddict.disguise.utilities.parser;
+
+import lombok.Getter;
+import me.libraryaddict.disguise.DisguiseConfig;
+import me.libraryaddict.disguise.disguisetypes.Disguise;
+import me.libraryaddict.disguise.utilities.DisguiseUtilities;
+import org.bukkit.command.CommandSender;
+import org.bukkit.entity.Entity;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A disguise that's parsed once and then given to many entities, used by the radius commands.
+ * <p>
+ * Each entity gets a clone of the parsed disguise. It's only parsed again for an entity that would have the target
+ * placeholders replaced with something different, and that is then reused for every entity with the same values.
+ */
+public class DisguiseTemplate {
+    interface Parser {
+        /**
+         * @return The disguise parsed for this target, the template only clones it
+         */
+        Disguise parse(Entity target) throws DisguiseParseException, IllegalAccessException, InvocationTargetException;
+    }
+
+    private final Parser parser;
+    private final TargetPlaceholders placeholders;
+    /**
+     * The disguise parsed with fake placeholders, to check that it can be parsed at all
+     */
+    @Getter
+    private final Disguise testDisguise;
+    private final HashMap<String, Disguise> parsed = new HashMap<>();
+
+    DisguiseTemplate(String[] args, Disguise testDisguise, Parser parser) {
+        this.parser = parser;
+        this.testDisguise = testDisguise;
+
+        Map.Entry<DisguisePerm, String> customDisguise =
+                args.length > 0 ? DisguiseConfig.getRawCustomDisguise(args[0]) : null;
+
+        // A custom disguise is replaced with its own args when it's parsed
+        placeholders = new TargetPlaceholders(
+                customDisguise == null ? args : DisguiseUtilities.split(customDisguise.getValue()));
+    }
+
+    /**
+     * Checks the disguise can be parsed, throwing the same errors as parsing it would
+     */
+    public static DisguiseTemplate compile(CommandSender sender, String permNode, String[] args,
+                                           DisguisePermissions permissions)
+            throws DisguiseParseException, IllegalAccessException, InvocationTargetException {
+        Disguise testDisguise = DisguiseParser.parseTestDisguise(sender, permNode, args, permissions);
+
+        return new DisguiseTemplate(args, testDisguise,
+                target -> DisguiseParser.parseDisguise(sender, target, permNode, args.clone(), permissions));
+    }
+
+    /**
+     * @return A new disguise for the target, the same as parsing the args with that target
+     */
+    public Disguise create(Entity target)
+            throws DisguiseParseException, IllegalAccessException, InvocationTargetException {
+        // Each disguise should get its own random values
+        if (DisguiseConfig.isRandomDisguises()) {
+            return parser.parse(target);
+        }
+
+        String key = placeholders.getKey(target);
+        Disguise disguise = parsed.get(key);
+
+        if (disguise == null) {
+            parsed.put(key, disguise = parser.parse(target));
+        }
+
+        return disguise.clone();
+    }
+}
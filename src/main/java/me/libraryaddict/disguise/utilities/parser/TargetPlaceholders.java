@@ -0,0 +1,94 @@
+package me.libraryaddict.disguise.utilities.parser;
+
+import me.libraryaddict.disguise.utilities.DisguiseUtilities;
+import me.libraryaddict.disguise.utilities.params.ParamInfoManager;
+import org.bukkit.command.CommandSender;
+import org.bukkit.inventory.EntityEquipment;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The target placeholders that are used in the args, targets that would have these replaced with the same values will
+ * parse the same
+ */
+class TargetPlaceholders {
+    private static final String[] placeholders =
+            {"%target-name%", "%target-displayname%", "%target-skin%", "%target-held-item%", "%target-offhand-item%",
+                    "%target-armor%", "%target-helmet%", "%target-chestplate%", "%target-leggings%",
+                    "%target-boots%"};
+
+    private final List<String> used = new ArrayList<>();
+
+    TargetPlaceholders(String[] args) {
+        for (String placeholder : placeholders) {
+            for (String arg : args) {
+                if (!arg.contains(placeholder)) {
+                    continue;
+                }
+
+                used.add(placeholder);
+                break;
+            }
+        }
+    }
+
+    /**
+     * @return What the placeholders would be replaced with for this target
+     */
+    String getKey(CommandSender target) {
+        if (used.isEmpty()) {
+            return "";
+        }
+
+        StringBuilder builder = new StringBuilder();
+        EntityEquipment equip = DisguiseParser.getEntityEquipment(target);
+
+        for (String placeholder : used) {
+            Object value;
+
+            switch (placeholder) {
+                case "%target-name%":
+                    value = DisguiseParser.getName(target);
+                    break;
+                case "%target-displayname%":
+                    value = DisguiseUtilities.getDisplayName(target);
+                    break;
+                case "%target-skin%":
+                    value = DisguiseParser.getSkin(target);
+                    break;
+                case "%target-held-item%":
+                    value = equip == null ? null : equip.getItemInMainHand();
+                    break;
+                case "%target-offhand-item%":
+                    value = equip == null ? null : equip.getItemInOffHand();
+                    break;
+                case "%target-armor%":
+                    value = equip == null ? null : equip.getArmorContents();
+                    break;
+                case "%target-helmet%":
+                    value = equip == null ? null : equip.getHelmet();
+                    break;
+                case "%target-chestplate%":
+                    value = equip == null ? null : equip.getChestplate();
+                    break;
+                case "%target-leggings%":
+                    value = equip == null ? null : equip.getLeggings();
+                    break;
+                default:
+                    value = equip == null ? null : equip.getBoots();
+                    break;
+            }
+
+            if (value instanceof String) {
+                builder.append(value);
+            } else {
+                builder.append(value == null ? "null" : ParamInfoManager.toString(value));
+            }
+
+            builder.append('\0');
+        }
+
+        return builder.toString();
+    }
+}
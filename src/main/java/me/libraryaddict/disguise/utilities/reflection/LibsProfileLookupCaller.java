@@ -4,14 +4,25 @@ import com.comphenix.protocol.wrappers.WrappedGameProfile;
 import com.mojang.authlib.GameProfile;
 import com.mojang.authlib.ProfileLookupCallback;
 
+import java.util.HashMap;
+import java.util.Locale;
+
 public class LibsProfileLookupCaller implements ProfileLookupCallback {
 
     private WrappedGameProfile gameProfile;
+    private final HashMap<String, WrappedGameProfile> gameProfiles = new HashMap<>();
 
     public WrappedGameProfile getGameProfile() {
         return gameProfile;
     }
 
+    /**
+     * Every profile found, by their lowercase name
+     */
+    public HashMap<String, WrappedGameProfile> getGameProfiles() {
+        return gameProfiles;
+    }
+
     @Override
     public void onProfileLookupFailed(GameProfile gameProfile, Exception arg1) {
     }
@@ -19,5 +30,6 @@ public class LibsProfileLookupCaller implements ProfileLookupCallback {
     @Override
     public void onProfileLookupSucceeded(GameProfile profile) {
         gameProfile = WrappedGameProfile.fromHandle(profile);
+        gameProfiles.put(profile.getName().toLowerCase(Locale.ENGLISH), gameProfile);
     }
 }
@@ -0,0 +1,117 @@
+package me.libraryaddict.disguise.utilities.reflection;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * Generates small classes with {@link LambdaMetafactory} that call a setter or getter directly, so the parser isn't
+ * going through reflection for every option on every disguise.
+ * <p>
+ * If a method can't be generated for, it falls back to calling it with reflection. Exceptions thrown by the method are
+ * thrown as they are, not wrapped in an {@link InvocationTargetException}
+ */
+public class MethodInvokers {
+    private static final MethodHandles.Lookup lookup = MethodHandles.lookup();
+    private static final Map<Method, BiConsumer<Object, Object>> setters = new ConcurrentHashMap<>();
+    private static final Map<Method, Function<Object, Object>> getters = new ConcurrentHashMap<>();
+
+    /**
+     * @param method A method taking a single param
+     * @return Accepts the object to call the method on, and the value to call it with
+     */
+    public static BiConsumer<Object, Object> getSetter(Method method) {
+        return setters.computeIfAbsent(method, MethodInvokers::createSetter);
+    }
+
+    /**
+     * @param method A method taking no params, that returns a value
+     * @return Accepts the object to call the method on, returning the value
+     */
+    public static Function<Object, Object> getGetter(Method method) {
+        return getters.computeIfAbsent(method, MethodInvokers::createGetter);
+    }
+
+    private static BiConsumer<Object, Object> createSetter(Method method) {
+        try {
+            MethodHandle handle = lookup.unreflect(method);
+
+            CallSite site = LambdaMetafactory
+                    .metafactory(lookup, "accept", MethodType.methodType(BiConsumer.class),
+                            MethodType.methodType(void.class, Object.class, Object.class), handle,
+                            MethodType.methodType(void.class, method.getDeclaringClass(),
+                                    wrap(method.getParameterTypes()[0])));
+
+            return (BiConsumer<Object, Object>) site.getTarget().invoke();
+        } catch (Throwable ex) {
+            method.setAccessible(true);
+
+            return (instance, value) -> invoke(method, instance, value);
+        }
+    }
+
+    private static Function<Object, Object> createGetter(Method method) {
+        try {
+            MethodHandle handle = lookup.unreflect(method);
+
+            CallSite site = LambdaMetafactory
+                    .metafactory(lookup, "apply", MethodType.methodType(Function.class),
+                            MethodType.methodType(Object.class, Object.class), handle,
+                            MethodType.methodType(wrap(method.getReturnType()), method.getDeclaringClass()));
+
+            return (Function<Object, Object>) site.getTarget().invoke();
+        } catch (Throwable ex) {
+            method.setAccessible(true);
+
+            return instance -> invoke(method, instance);
+        }
+    }
+
+    private static Object invoke(Method method, Object instance, Object... args) {
+        try {
+            return method.invoke(instance, args);
+        } catch (InvocationTargetException ex) {
+            if (ex.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) ex.getCause();
+            } else if (ex.getCause() instanceof Error) {
+                throw (Error) ex.getCause();
+            }
+
+            throw new IllegalStateException(ex.getCause());
+        } catch (IllegalAccessException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private static Class<?> wrap(Class<?> type) {
+        if (!type.isPrimitive()) {
+            return type;
+        } else if (type == boolean.class) {
+            return Boolean.class;
+        } else if (type == byte.class) {
+            return Byte.class;
+        } else if (type == short.class) {
+            return Short.class;
+        } else if (type == char.class) {
+            return Character.class;
+        } else if (type == int.class) {
+            return Integer.class;
+        } else if (type == long.class) {
+            return Long.class;
+        } else if (type == float.class) {
+            return Float.class;
+        } else if (type == double.class) {
+            return Double.class;
+        }
+
+        return Void.class;
+    }
+}
@@ -910,6 +910,28 @@ public class ReflectionManager {
      * Gets the UUID of the player, as well as properly capitalized playername
      */
     public static WrappedGameProfile grabProfileAddUUID(String playername) {
+        Map<String, WrappedGameProfile> profiles = grabProfilesAddUUID(playername);
+
+        if (profiles == null) {
+            return null;
+        }
+
+        WrappedGameProfile profile = profiles.get(playername.toLowerCase(Locale.ENGLISH));
+
+        if (profile != null) {
+            return profile;
+        }
+
+        return getGameProfile(null, playername);
+    }
+
+    /**
+     * Gets the UUID and properly capitalized name of every player in one request. Names that weren't found are left
+     * out
+     *
+     * @return The profiles by their lowercase name, or null if the lookup failed
+     */
+    public static Map<String, WrappedGameProfile> grabProfilesAddUUID(String... playernames) {
         try {
             Object minecraftServer = getMinecraftServer();
 
@@ -922,13 +944,9 @@ public class ReflectionManager {
 
                     method.getReturnType().getMethod("findProfilesByNames", String[].class, agent.getClass(),
                             Class.forName("com.mojang.authlib.ProfileLookupCallback"))
-                            .invoke(profileRepo, new String[]{playername}, agent, callback);
-
-                    if (callback.getGameProfile() != null) {
-                        return callback.getGameProfile();
-                    }
+                            .invoke(profileRepo, playernames, agent, callback);
 
-                    return getGameProfile(null, playername);
+                    return callback.getGameProfiles();
                 }
             }
         } catch (Exception ex) {
@@ -1589,7 +1607,7 @@ public class ReflectionManager {
         return null;
     }
 
-    private static Class<? extends FlagWatcher> getFlagWatcher(DisguiseType disguiseType) {
+    public static Class<? extends FlagWatcher> getFlagWatcher(DisguiseType disguiseType) {
         Class<? extends FlagWatcher> watcherClass;
 
         try {
@@ -1810,7 +1828,7 @@ public class ReflectionManager {
 
                 disguiseValues.setAdultBox(new FakeBoundingBox(0, 0, 0));
 
-                SoundGroup sound = SoundGroup.getGroup(disguiseType.name());
+                SoundGroup sound = SoundGroup.getGroup(disguiseType);
 
                 if (sound != null) {
                     sound.setDamageAndIdleSoundVolume(1f);
@@ -1892,7 +1910,7 @@ public class ReflectionManager {
                                 " at index " + index.getIndex());
             }
 
-            SoundGroup sound = SoundGroup.getGroup(disguiseType.name());
+            SoundGroup sound = SoundGroup.getGroup(disguiseType);
 
             if (sound != null) {
                 Float soundStrength = ReflectionManager.getSoundModifier(nmsEntity);
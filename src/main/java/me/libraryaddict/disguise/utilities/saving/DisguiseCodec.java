@@ -0,0 +1,1054 @@
+package me.libraryaddict.disguise.utilities.saving;
+
+import com.comphenix.protocol.wrappers.BlockPosition;
+import com.comphenix.protocol.wrappers.Vector3F;
+import com.comphenix.protocol.wrappers.WrappedChatComponent;
+import com.comphenix.protocol.wrappers.WrappedGameProfile;
+import com.comphenix.protocol.wrappers.WrappedSignedProperty;
+import me.libraryaddict.disguise.DisguiseConfig;
+import me.libraryaddict.disguise.disguisetypes.*;
+import me.libraryaddict.disguise.utilities.DisguiseUtilities;
+import me.libraryaddict.disguise.utilities.modded.ModdedEntity;
+import me.libraryaddict.disguise.utilities.modded.ModdedManager;
+import org.bukkit.ChatColor;
+import org.bukkit.Material;
+import org.bukkit.boss.BarColor;
+import org.bukkit.boss.BarStyle;
+import org.bukkit.entity.Villager;
+import org.bukkit.inventory.ItemStack;
+
+import java.io.*;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Reads and writes disguises in a compact binary format, used for saved disguises. Json is still used for everything
+ * a person might read.
+ * <p>
+ * Every field is written in a fixed order, so when a field is added, removed or changed {@link #VERSION} must be
+ * increased and reading the older versions kept working. Meta values are written with a tag saying what they are,
+ * the rarer types are written as json.
+ */
+public class DisguiseCodec {
+    /**
+     * Json starts with a [ so this can't be mistaken for it
+     */
+    private static final byte[] MAGIC = {'L', 'D'};
+    public static final int VERSION = 1;
+
+    private static final int KIND_PLAYER = 0;
+    private static final int KIND_MOB = 1;
+    private static final int KIND_MISC = 2;
+    private static final int KIND_MODDED = 3;
+
+    private static final int TAG_NULL = 0;
+    private static final int TAG_FALSE = 1;
+    private static final int TAG_TRUE = 2;
+    private static final int TAG_BYTE = 3;
+    private static final int TAG_SHORT = 4;
+    private static final int TAG_INT = 5;
+    private static final int TAG_LONG = 6;
+    private static final int TAG_FLOAT = 7;
+    private static final int TAG_DOUBLE = 8;
+    private static final int TAG_STRING = 9;
+    private static final int TAG_ENUM = 10;
+    private static final int TAG_UUID = 11;
+    private static final int TAG_BLOCK_POSITION = 12;
+    private static final int TAG_VECTOR = 13;
+    private static final int TAG_ITEM = 14;
+    private static final int TAG_OPTIONAL_EMPTY = 15;
+    private static final int TAG_OPTIONAL = 16;
+    private static final int TAG_OPTIONAL_INT = 17;
+    private static final int TAG_VILLAGER_DATA = 18;
+    private static final int TAG_CHAT = 19;
+    private static final int TAG_JSON = 20;
+    private static final int TAG_COLLECTION = 21;
+
+    /**
+     * The fields that are written for each class, anything not in here is either transient or deliberately skipped
+     */
+    private static final HashMap<Class, HashMap<String, Field>> fields = new HashMap<>();
+
+    private static final Field disguiseType = field(Disguise.class, "disguiseType");
+    private static final Field[] disguiseFlags =
+            fields(Disguise.class, "hearSelfDisguise", "hideArmorFromSelf", "hideHeldItemFromSelf",
+                    "keepDisguisePlayerDeath", "modifyBoundingBox", "playerHiddenFromTab", "replaceSounds",
+                    "mobsIgnoreDisguise", "velocitySent", "viewSelfDisguise", "customDisguiseName",
+                    "tallDisguisesVisible", "dynamicName");
+    private static final Field notifyBar = field(Disguise.class, "notifyBar");
+    private static final Field bossBarColor = field(Disguise.class, "bossBarColor");
+    private static final Field bossBarStyle = field(Disguise.class, "bossBarStyle");
+    private static final Field watcher = field(Disguise.class, "watcher");
+    private static final Field disguiseExpires = field(Disguise.class, "disguiseExpires");
+    private static final Field customData = field(Disguise.class, "customData");
+    private static final Field disguiseName = field(Disguise.class, "disguiseName");
+    private static final Field multiName = field(Disguise.class, "multiName");
+    private static final Field soundGroup = field(Disguise.class, "soundGroup");
+    // Unique to each disguise instance, so it isn't saved
+    private static final Field bossBar = field(Disguise.class, "bossBar");
+
+    private static final Field disguiseViewers = field(TargetedDisguise.class, "disguiseViewers");
+    private static final Field targetType = field(TargetedDisguise.class, "targetType");
+
+    private static final Field gameProfile = field(PlayerDisguise.class, "gameProfile");
+    private static final Field playerName = field(PlayerDisguise.class, "playerName");
+    private static final Field skinToUse = field(PlayerDisguise.class, "skinToUse");
+    private static final Field[] playerFlags = fields(PlayerDisguise.class, "nameVisible", "explicitNameVisible");
+    private static final Field playerUUID = field(PlayerDisguise.class, "uuid");
+
+    private static final Field isAdult = field(MobDisguise.class, "isAdult");
+    private static final Field miscId = field(MiscDisguise.class, "id");
+    private static final Field miscData = field(MiscDisguise.class, "data");
+    private static final Field moddedEntity = field(ModdedDisguise.class, "moddedEntity");
+
+    private static final Field[] watcherFlags =
+            fields(FlagWatcher.class, "addEntityAnimations", "sleeping", "upsideDown");
+    private static final Field modifiedEntityAnimations = field(FlagWatcher.class, "modifiedEntityAnimations");
+    private static final Field glowColor = field(FlagWatcher.class, "glowColor");
+    private static final Field pitchLock = field(FlagWatcher.class, "pitchLock");
+    private static final Field yawLock = field(FlagWatcher.class, "yawLock");
+    private static final Field yModifier = field(FlagWatcher.class, "yModifier");
+    private static final Field entityValues = field(FlagWatcher.class, "entityValues");
+    private static final Field backupEntityValues = field(FlagWatcher.class, "backupEntityValues");
+    private static final Field equipment = field(FlagWatcher.class, "equipment");
+
+    private static final Field equipmentItems = field(LibsEquipment.class, "equipment");
+
+    private static final Constructor<PlayerDisguise> playerConstructor;
+    private static final Method setDisguise;
+
+    /**
+     * The generic type of each MetaIndex, as the default value alone doesn't say what an Optional holds
+     */
+    private static HashMap<MetaIndex, Type> metaTypes;
+    private static final ConcurrentHashMap<Class<? extends FlagWatcher>, HashMap<Integer, MetaIndex>> metaIndexes =
+            new ConcurrentHashMap<>();
+    /**
+     * The fields declared by each watcher class between it and FlagWatcher, written by name after the FlagWatcher fields
+     */
+    private static final ConcurrentHashMap<Class, LinkedHashMap<String, Field>> watcherFields =
+            new ConcurrentHashMap<>();
+
+    static {
+        try {
+            playerConstructor = PlayerDisguise.class.getDeclaredConstructor();
+            playerConstructor.setAccessible(true);
+
+            setDisguise = FlagWatcher.class.getDeclaredMethod("setDisguise", TargetedDisguise.class);
+            setDisguise.setAccessible(true);
+        } catch (NoSuchMethodException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static Field field(Class owner, String name) {
+        try {
+            Field field = owner.getDeclaredField(name);
+            field.setAccessible(true);
+
+            fields.computeIfAbsent(owner, key -> new HashMap<>()).put(name, field);
+
+            return field;
+        } catch (NoSuchFieldException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static Field[] fields(Class owner, String... names) {
+        Field[] array = new Field[names.length];
+
+        for (int i = 0; i < names.length; i++) {
+            array[i] = field(owner, names[i]);
+        }
+
+        return array;
+    }
+
+    /**
+     * If this field is handled by the codec, or deliberately skipped
+     */
+    static boolean isKnownField(Field field) {
+        Class owner = field.getDeclaringClass();
+
+        if (owner != FlagWatcher.class && FlagWatcher.class.isAssignableFrom(owner)) {
+            return field.equals(getWatcherFields(owner).get(field.getName()));
+        }
+
+        HashMap<String, Field> known = fields.get(owner);
+
+        return known != null && known.containsKey(field.getName());
+    }
+
+    public static boolean isEncoded(byte[] data) {
+        return data.length > MAGIC.length && data[0] == MAGIC[0] && data[1] == MAGIC[1];
+    }
+
+    /**
+     * Reads saved disguises, which may be json if they were saved before this format existed
+     */
+    public static Disguise[] decodeSaved(byte[] data) throws IOException {
+        Disguise[] disguises;
+
+        if (isEncoded(data)) {
+            disguises = decode(data);
+        } else {
+            disguises = DisguiseUtilities.getGson().fromJson(new String(data, StandardCharsets.UTF_8), Disguise[].class);
+        }
+
+        return disguises == null ? new Disguise[0] : disguises;
+    }
+
+    public static byte[] encode(Disguise[] disguises) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256 * Math.max(1, disguises.length));
+        DataOutputStream output = new DataOutputStream(bytes);
+
+        output.write(MAGIC);
+        output.writeByte(VERSION);
+        writeVarInt(output, disguises.length);
+
+        for (Disguise disguise : disguises) {
+            // Each disguise is prefixed by its length, so one that can't be read can be skipped
+            ByteArrayOutputStream disguiseBytes = new ByteArrayOutputStream(256);
+
+            try {
+                writeDisguise(new DataOutputStream(disguiseBytes), disguise);
+            } catch (IllegalAccessException e) {
+                throw new IOException(e);
+            }
+
+            writeVarInt(output, disguiseBytes.size());
+            disguiseBytes.writeTo(output);
+        }
+
+        return bytes.toByteArray();
+    }
+
+    public static Disguise[] decode(byte[] data) throws IOException {
+        if (!isEncoded(data)) {
+            throw new IOException("Not an encoded disguise");
+        }
+
+        DataInputStream input =
+                new DataInputStream(new ByteArrayInputStream(data, MAGIC.length, data.length - MAGIC.length));
+
+        int version = input.readUnsignedByte();
+
+        if (version > VERSION) {
+            throw new IOException("The disguise was saved by a newer version of Lib's Disguises, " + version);
+        }
+
+        int count = readVarInt(input);
+        ArrayList<Disguise> disguises = new ArrayList<>(count);
+
+        for (int i = 0; i < count; i++) {
+            byte[] disguiseBytes = new byte[readVarInt(input)];
+            input.readFully(disguiseBytes);
+
+            try {
+                Disguise disguise =
+                        readDisguise(new DataInputStream(new ByteArrayInputStream(disguiseBytes)), version);
+
+                if (disguise != null) {
+                    disguises.add(disguise);
+                }
+            } catch (IOException | ReflectiveOperationException | RuntimeException e) {
+                DisguiseUtilities.getLogger().severe("Unable to read a saved disguise");
+                e.printStackTrace();
+            }
+        }
+
+        return disguises.toArray(new Disguise[0]);
+    }
+
+    private static void writeDisguise(DataOutputStream output, Disguise disguise) throws IOException,
+            IllegalAccessException {
+        writeString(output, disguise.getType().name());
+
+        if (disguise instanceof ModdedDisguise) {
+            output.writeByte(KIND_MODDED);
+            writeString(output, ((ModdedDisguise) disguise).getModdedEntity().getName());
+        } else if (disguise instanceof PlayerDisguise) {
+            output.writeByte(KIND_PLAYER);
+        } else if (disguise instanceof MobDisguise) {
+            output.writeByte(KIND_MOB);
+        } else {
+            output.writeByte(KIND_MISC);
+        }
+
+        writeFlags(output, disguise, disguiseFlags);
+        writeEnum(output, (Enum) notifyBar.get(disguise));
+        writeEnum(output, (Enum) bossBarColor.get(disguise));
+        writeEnum(output, (Enum) bossBarStyle.get(disguise));
+        writeVarLong(output, disguiseExpires.getLong(disguise));
+
+        Map<String, Object> data = (Map<String, Object>) customData.get(disguise);
+        writeVarInt(output, data.size());
+
+        for (Map.Entry<String, Object> entry : data.entrySet()) {
+            writeString(output, entry.getKey());
+            writeValue(output, entry.getValue(), null);
+        }
+
+        writeString(output, (String) disguiseName.get(disguise));
+        writeStrings(output, Arrays.asList((String[]) multiName.get(disguise)));
+        writeString(output, (String) soundGroup.get(disguise));
+
+        writeStrings(output, (List<String>) disguiseViewers.get(disguise));
+        writeEnum(output, (Enum) targetType.get(disguise));
+
+        if (disguise instanceof PlayerDisguise) {
+            writeProfile(output, (WrappedGameProfile) gameProfile.get(disguise));
+            writeString(output, (String) playerName.get(disguise));
+            writeString(output, (String) skinToUse.get(disguise));
+            writeFlags(output, disguise, playerFlags);
+            writeUUID(output, (UUID) playerUUID.get(disguise));
+        } else if (disguise instanceof MobDisguise) {
+            output.writeBoolean(isAdult.getBoolean(disguise));
+        } else if (disguise instanceof MiscDisguise) {
+            writeVarInt(output, zigZag(miscId.getInt(disguise)));
+            writeVarInt(output, zigZag(miscData.getInt(disguise)));
+        }
+
+        FlagWatcher flagWatcher = disguise.getWatcher();
+        output.writeBoolean(flagWatcher != null);
+
+        if (flagWatcher != null) {
+            writeWatcher(output, disguise.getType(), flagWatcher);
+        }
+    }
+
+    private static Disguise readDisguise(DataInputStream input, int version) throws IOException,
+            ReflectiveOperationException {
+        String typeName = readString(input);
+        DisguiseType type;
+
+        try {
+            type = DisguiseType.valueOf(typeName);
+        } catch (IllegalArgumentException ex) {
+            DisguiseUtilities.getLogger().warning("Unknown disguise type " + typeName + " in saved disguise");
+            return null;
+        }
+
+        int kind = input.readUnsignedByte();
+        TargetedDisguise disguise;
+
+        switch (kind) {
+            case KIND_MODDED:
+                String name = readString(input);
+                ModdedEntity entity = ModdedManager.getModdedEntity(name);
+
+                if (entity == null) {
+                    DisguiseUtilities.getLogger().warning("Unknown modded entity " + name + " in saved disguise");
+                    return null;
+                }
+
+                disguise = new ModdedDisguise(entity);
+                break;
+            case KIND_PLAYER:
+                disguise = playerConstructor.newInstance();
+                break;
+            case KIND_MOB:
+                disguise = new MobDisguise(type);
+                break;
+            case KIND_MISC:
+                disguise = new MiscDisguise(type);
+                break;
+            default:
+                throw new IOException("Unknown disguise kind " + kind);
+        }
+
+        disguiseType.set(disguise, type);
+
+        readFlags(input, disguise, disguiseFlags);
+        notifyBar.set(disguise, readEnum(input, DisguiseConfig.NotifyBar.class));
+        bossBarColor.set(disguise, readEnum(input, BarColor.class));
+        bossBarStyle.set(disguise, readEnum(input, BarStyle.class));
+        disguiseExpires.setLong(disguise, readVarLong(input));
+
+        Map<String, Object> data = (Map<String, Object>) customData.get(disguise);
+        data.clear();
+
+        for (int i = readVarInt(input); i > 0; i--) {
+            data.put(readString(input), readValue(input, null));
+        }
+
+        disguiseName.set(disguise, readString(input));
+        multiName.set(disguise, readStrings(input).toArray(new String[0]));
+        soundGroup.set(disguise, readString(input));
+
+        disguiseViewers.set(disguise, readStrings(input));
+        targetType.set(disguise, readEnum(input, TargetedDisguise.TargetType.class));
+
+        if (disguise instanceof PlayerDisguise) {
+            gameProfile.set(disguise, readProfile(input));
+            playerName.set(disguise, readString(input));
+            skinToUse.set(disguise, readString(input));
+            readFlags(input, disguise, playerFlags);
+            playerUUID.set(disguise, readUUID(input));
+        } else if (disguise instanceof MobDisguise) {
+            isAdult.setBoolean(disguise, input.readBoolean());
+        } else if (disguise instanceof MiscDisguise) {
+            miscId.setInt(disguise, unZigZag(readVarInt(input)));
+            miscData.setInt(disguise, unZigZag(readVarInt(input)));
+        }
+
+        if (input.readBoolean()) {
+            FlagWatcher flagWatcher = readWatcher(input, type, disguise);
+
+            watcher.set(disguise, flagWatcher);
+            setDisguise.invoke(flagWatcher, disguise);
+        }
+
+        return disguise;
+    }
+
+    static void writeWatcher(DataOutputStream output, DisguiseType type, FlagWatcher flagWatcher) throws
+            IOException, IllegalAccessException {
+        // Only written if it isn't the usual watcher for this disguise
+        writeString(output,
+                flagWatcher.getClass() == type.getWatcherClass() ? null : flagWatcher.getClass().getName());
+
+        writeFlags(output, flagWatcher, watcherFlags);
+
+        boolean[] animations = (boolean[]) modifiedEntityAnimations.get(flagWatcher);
+        writeVarInt(output, animations.length);
+        writeVarLong(output, toBits(animations));
+
+        writeEnum(output, (Enum) glowColor.get(flagWatcher));
+        writeNullableFloat(output, (Float) pitchLock.get(flagWatcher));
+        writeNullableFloat(output, (Float) yawLock.get(flagWatcher));
+        output.writeFloat(yModifier.getFloat(flagWatcher));
+
+        writeMeta(output, (Map<Integer, Object>) entityValues.get(flagWatcher), flagWatcher.getClass());
+        writeMeta(output, (Map<Integer, Object>) backupEntityValues.get(flagWatcher), type.getWatcherClass());
+
+        ItemStack[] items = (ItemStack[]) equipmentItems.get(equipment.get(flagWatcher));
+        writeVarInt(output, items.length);
+
+        for (ItemStack item : items) {
+            writeValue(output, item, ItemStack.class);
+        }
+
+        // The fields the watcher subclasses add, such as the max health or falling block
+        Collection<Field> subclassFields = getWatcherFields(flagWatcher.getClass()).values();
+        writeVarInt(output, subclassFields.size());
+
+        for (Field field : subclassFields) {
+            writeString(output, field.getName());
+            writeValue(output, field.get(flagWatcher), field.getGenericType());
+        }
+    }
+
+    static FlagWatcher readWatcher(DataInputStream input, DisguiseType type, TargetedDisguise disguise)
+            throws IOException, ReflectiveOperationException {
+        String className = readString(input);
+        Class<? extends FlagWatcher> watcherClass = type.getWatcherClass();
+
+        if (className != null) {
+            // Not initialized until it's known to be a watcher, the name could be anything in a corrupt file
+            try {
+                watcherClass = Class.forName(className, false, DisguiseCodec.class.getClassLoader())
+                        .asSubclass(FlagWatcher.class);
+            } catch (ClassNotFoundException | ClassCastException ex) {
+                DisguiseUtilities.getLogger()
+                        .warning("Unknown watcher " + className + " when reading a saved " + type + " disguise");
+            }
+        }
+
+        FlagWatcher flagWatcher = watcherClass.getConstructor(Disguise.class).newInstance(disguise);
+
+        readFlags(input, flagWatcher, watcherFlags);
+
+        boolean[] animations = new boolean[readVarInt(input)];
+        fromBits(readVarLong(input), animations);
+        modifiedEntityAnimations.set(flagWatcher, animations);
+
+        glowColor.set(flagWatcher, readEnum(input, ChatColor.class));
+        pitchLock.set(flagWatcher, readNullableFloat(input));
+        yawLock.set(flagWatcher, readNullableFloat(input));
+        yModifier.setFloat(flagWatcher, input.readFloat());
+
+        entityValues.set(flagWatcher, readMeta(input, watcherClass));
+        backupEntityValues.set(flagWatcher, readMeta(input, type.getWatcherClass()));
+
+        ItemStack[] items = (ItemStack[]) equipmentItems.get(equipment.get(flagWatcher));
+        int length = readVarInt(input);
+
+        for (int i = 0; i < length; i++) {
+            ItemStack item = (ItemStack) readValue(input, ItemStack.class);
+
+            if (i < items.length) {
+                items[i] = item;
+            }
+        }
+
+        LinkedHashMap<String, Field> subclassFields = getWatcherFields(watcherClass);
+
+        for (int i = readVarInt(input); i > 0; i--) {
+            Field field = subclassFields.get(readString(input));
+            Object value = readValue(input, field == null ? null : field.getGenericType());
+
+            // The field no longer exists, or is no longer the same type
+            if (field == null || (value == null ? field.getType().isPrimitive() :
+                    !MethodType.methodType(field.getType()).wrap().returnType().isInstance(value))) {
+                continue;
+            }
+
+            field.set(flagWatcher, value);
+        }
+
+        return flagWatcher;
+    }
+
+    private static LinkedHashMap<String, Field> getWatcherFields(Class watcherClass) {
+        return watcherFields.computeIfAbsent(watcherClass, key -> {
+            LinkedHashMap<String, Field> map = new LinkedHashMap<>();
+
+            for (Class c = key; c != FlagWatcher.class && c != null; c = c.getSuperclass()) {
+                for (Field field : c.getDeclaredFields()) {
+                    if (Modifier.isStatic(field.getModifiers()) || Modifier.isTransient(field.getModifiers())) {
+                        continue;
+                    }
+
+                    field.setAccessible(true);
+                    // A field hidden by one with the same name in a subclass isn't written
+                    map.putIfAbsent(field.getName(), field);
+                }
+            }
+
+            return map;
+        });
+    }
+
+    private static void writeMeta(DataOutputStream output, Map<Integer, Object> values,
+            Class<? extends FlagWatcher> watcherClass) throws IOException {
+        writeVarInt(output, values.size());
+
+        for (Map.Entry<Integer, Object> entry : values.entrySet()) {
+            MetaIndex index = getMetaIndex(watcherClass, entry.getKey());
+
+            writeVarInt(output, entry.getKey());
+            writeValue(output, entry.getValue(), index == null ? null : getMetaType(index));
+        }
+    }
+
+    private static HashMap<Integer, Object> readMeta(DataInputStream input,
+            Class<? extends FlagWatcher> watcherClass) throws IOException {
+        int size = readVarInt(input);
+        HashMap<Integer, Object> values = new HashMap<>();
+        int fixed = 0;
+
+        for (int i = 0; i < size; i++) {
+            int key = readVarInt(input);
+            MetaIndex index = getMetaIndex(watcherClass, key);
+            Object value = readValue(input, index == null ? null : getMetaType(index));
+
+            // The meta no longer exists
+            if (index == null) {
+                continue;
+            }
+
+            // If what was saved isn't the same type as the default
+            if (value == null || !index.getDefault().getClass().isInstance(value)) {
+                value = index.getDefault();
+                fixed++;
+            }
+
+            values.put(key, value);
+        }
+
+        if (fixed > 0) {
+            DisguiseUtilities.getLogger().info("Fixed " + fixed + " incorrect disguise flags on saved disguise");
+        }
+
+        return values;
+    }
+
+    private static MetaIndex getMetaIndex(Class<? extends FlagWatcher> watcherClass, int index) {
+        HashMap<Integer, MetaIndex> indexes = metaIndexes.computeIfAbsent(watcherClass, key -> {
+            HashMap<Integer, MetaIndex> map = new HashMap<>();
+
+            for (MetaIndex metaIndex : MetaIndex.getMetaIndexes(key)) {
+                map.putIfAbsent(metaIndex.getIndex(), metaIndex);
+            }
+
+            return map;
+        });
+
+        return indexes.get(index);
+    }
+
+    private static synchronized Type getMetaType(MetaIndex index) {
+        if (metaTypes == null) {
+            metaTypes = new HashMap<>();
+
+            for (Field field : MetaIndex.class.getFields()) {
+                if (!Modifier.isStatic(field.getModifiers()) || field.getType() != MetaIndex.class ||
+                        !(field.getGenericType() instanceof ParameterizedType)) {
+                    continue;
+                }
+
+                try {
+                    MetaIndex metaIndex = (MetaIndex) field.get(null);
+
+                    if (metaIndex != null) {
+                        metaTypes.put(metaIndex,
+                                ((ParameterizedType) field.getGenericType()).getActualTypeArguments()[0]);
+                    }
+                } catch (IllegalAccessException e) {
+                    e.printStackTrace();
+                }
+            }
+        }
+
+        Type type = metaTypes.get(index);
+
+        return type != null ? type : index.getDefault().getClass();
+    }
+
+    private static Class getRawClass(Type type) {
+        if (type instanceof Class) {
+            return (Class) type;
+        } else if (type instanceof ParameterizedType) {
+            return (Class) ((ParameterizedType) type).getRawType();
+        }
+
+        return null;
+    }
+
+    /**
+     * @param expected The type this should be, or null if it could be anything
+     */
+    private static void writeValue(DataOutputStream output, Object value, Type expected) throws IOException {
+        if (value == null) {
+            output.writeByte(TAG_NULL);
+        } else if (value instanceof Boolean) {
+            output.writeByte((Boolean) value ? TAG_TRUE : TAG_FALSE);
+        } else if (value instanceof Byte) {
+            output.writeByte(TAG_BYTE);
+            output.writeByte((Byte) value);
+        } else if (value instanceof Short) {
+            output.writeByte(TAG_SHORT);
+            output.writeShort((Short) value);
+        } else if (value instanceof Integer) {
+            output.writeByte(TAG_INT);
+            writeVarInt(output, zigZag((Integer) value));
+        } else if (value instanceof Long) {
+            output.writeByte(TAG_LONG);
+            writeVarLong(output, (Long) value << 1 ^ (Long) value >> 63);
+        } else if (value instanceof Float) {
+            output.writeByte(TAG_FLOAT);
+            output.writeFloat((Float) value);
+        } else if (value instanceof Double) {
+            output.writeByte(TAG_DOUBLE);
+            output.writeDouble((Double) value);
+        } else if (value instanceof String) {
+            output.writeByte(TAG_STRING);
+            writeString(output, (String) value);
+        } else if (value instanceof Enum && expected != null) {
+            // Without knowing the class, the enum couldn't be read back
+            output.writeByte(TAG_ENUM);
+            writeString(output, ((Enum) value).name());
+        } else if (value instanceof UUID) {
+            output.writeByte(TAG_UUID);
+            writeUUID(output, (UUID) value);
+        } else if (value instanceof BlockPosition) {
+            BlockPosition position = (BlockPosition) value;
+
+            output.writeByte(TAG_BLOCK_POSITION);
+            writeVarInt(output, zigZag(position.getX()));
+            writeVarInt(output, zigZag(position.getY()));
+            writeVarInt(output, zigZag(position.getZ()));
+        } else if (value instanceof Vector3F) {
+            Vector3F vector = (Vector3F) value;
+
+            output.writeByte(TAG_VECTOR);
+            output.writeFloat(vector.getX());
+            output.writeFloat(vector.getY());
+            output.writeFloat(vector.getZ());
+        } else if (value instanceof ItemStack && isPlainItem((ItemStack) value)) {
+            ItemStack item = (ItemStack) value;
+
+            output.writeByte(TAG_ITEM);
+            writeString(output, item.getType().name());
+            writeVarInt(output, item.getAmount());
+        } else if (value instanceof Optional) {
+            Optional optional = (Optional) value;
+
+            if (!optional.isPresent()) {
+                output.writeByte(TAG_OPTIONAL_EMPTY);
+            } else {
+                output.writeByte(TAG_OPTIONAL);
+                writeValue(output, optional.get(), expected instanceof ParameterizedType ?
+                        ((ParameterizedType) expected).getActualTypeArguments()[0] : null);
+            }
+        } else if (value instanceof OptionalInt) {
+            OptionalInt optional = (OptionalInt) value;
+
+            if (!optional.isPresent()) {
+                output.writeByte(TAG_OPTIONAL_EMPTY);
+            } else {
+                output.writeByte(TAG_OPTIONAL_INT);
+                writeVarInt(output, zigZag(optional.getAsInt()));
+            }
+        } else if (value instanceof VillagerData) {
+            VillagerData villagerData = (VillagerData) value;
+
+            output.writeByte(TAG_VILLAGER_DATA);
+            writeString(output, villagerData.getType().name());
+            writeString(output, villagerData.getProfession().name());
+            writeVarInt(output, villagerData.getLevel());
+        } else if (value instanceof WrappedChatComponent) {
+            output.writeByte(TAG_CHAT);
+            writeString(output, ((WrappedChatComponent) value).getJson());
+        } else if (value instanceof Collection && getRawClass(expected) != null) {
+            // Without knowing the class, it couldn't be read back as the same collection
+            Collection collection = (Collection) value;
+            Type elementType = expected instanceof ParameterizedType ?
+                    ((ParameterizedType) expected).getActualTypeArguments()[0] : null;
+
+            output.writeByte(TAG_COLLECTION);
+            writeVarInt(output, collection.size());
+
+            for (Object element : collection) {
+                writeValue(output, element, elementType);
+            }
+        } else {
+            output.writeByte(TAG_JSON);
+            writeString(output, expected == null ? DisguiseUtilities.getGson().toJson(value) :
+                    DisguiseUtilities.getGson().toJson(value, expected));
+        }
+    }
+
+    private static Object readValue(DataInputStream input, Type expected) throws IOException {
+        int tag = input.readUnsignedByte();
+
+        switch (tag) {
+            case TAG_NULL:
+                return null;
+            case TAG_FALSE:
+                return false;
+            case TAG_TRUE:
+                return true;
+            case TAG_BYTE:
+                return input.readByte();
+            case TAG_SHORT:
+                return input.readShort();
+            case TAG_INT:
+                return unZigZag(readVarInt(input));
+            case TAG_LONG:
+                long zigZagged = readVarLong(input);
+
+                return zigZagged >>> 1 ^ -(zigZagged & 1);
+            case TAG_FLOAT:
+                return input.readFloat();
+            case TAG_DOUBLE:
+                return input.readDouble();
+            case TAG_STRING:
+                return readString(input);
+            case TAG_ENUM:
+                String name = readString(input);
+                Class enumClass = getRawClass(expected);
+
+                if (enumClass == null || !enumClass.isEnum()) {
+                    return null;
+                }
+
+                try {
+                    return Enum.valueOf(enumClass, name);
+                } catch (IllegalArgumentException ex) {
+                    return null;
+                }
+            case TAG_UUID:
+                return readUUID(input);
+            case TAG_BLOCK_POSITION:
+                return new BlockPosition(unZigZag(readVarInt(input)), unZigZag(readVarInt(input)),
+                        unZigZag(readVarInt(input)));
+            case TAG_VECTOR:
+                return new Vector3F(input.readFloat(), input.readFloat(), input.readFloat());
+            case TAG_ITEM:
+                Material material = Material.getMaterial(readString(input));
+                int amount = readVarInt(input);
+
+                return material == null ? null : new ItemStack(material, amount);
+            case TAG_OPTIONAL_EMPTY:
+                return getRawClass(expected) == OptionalInt.class ? OptionalInt.empty() : Optional.empty();
+            case TAG_OPTIONAL:
+                return Optional.ofNullable(readValue(input, expected instanceof ParameterizedType ?
+                        ((ParameterizedType) expected).getActualTypeArguments()[0] : null));
+            case TAG_OPTIONAL_INT:
+                return OptionalInt.of(unZigZag(readVarInt(input)));
+            case TAG_VILLAGER_DATA:
+                Villager.Type villagerType = Villager.Type.valueOf(readString(input));
+                Villager.Profession profession = Villager.Profession.valueOf(readString(input));
+
+                return new VillagerData(villagerType, profession, readVarInt(input));
+            case TAG_CHAT:
+                return WrappedChatComponent.fromJson(readString(input));
+            case TAG_JSON:
+                return DisguiseUtilities.getGson().fromJson(readString(input), expected == null ? Object.class : expected);
+            case TAG_COLLECTION:
+                Collection collection = createCollection(getRawClass(expected));
+                Type elementType = expected instanceof ParameterizedType ?
+                        ((ParameterizedType) expected).getActualTypeArguments()[0] : null;
+
+                for (int i = readVarInt(input); i > 0; i--) {
+                    collection.add(readValue(input, elementType));
+                }
+
+                return collection;
+            default:
+                throw new IOException("Unknown value tag " + tag);
+        }
+    }
+
+    /**
+     * Durability and data values on older versions aren't item meta, so only an item with nothing but its type and
+     * amount is written as one
+     */
+    private static boolean isPlainItem(ItemStack item) {
+        return item.equals(new ItemStack(item.getType(), item.getAmount()));
+    }
+
+    private static Collection createCollection(Class collectionClass) {
+        if (collectionClass != null && !collectionClass.isInterface() &&
+                !Modifier.isAbstract(collectionClass.getModifiers()) &&
+                Collection.class.isAssignableFrom(collectionClass)) {
+            try {
+                return (Collection) collectionClass.getConstructor().newInstance();
+            } catch (ReflectiveOperationException ignored) {
+            }
+        }
+
+        if (collectionClass != null && Set.class.isAssignableFrom(collectionClass)) {
+            return new LinkedHashSet();
+        }
+
+        return new ArrayList();
+    }
+
+    private static void writeProfile(DataOutputStream output, WrappedGameProfile profile) throws IOException {
+        output.writeBoolean(profile != null);
+
+        if (profile == null) {
+            return;
+        }
+
+        writeUUID(output, profile.getUUID());
+        writeString(output, profile.getName());
+        writeVarInt(output, profile.getProperties().size());
+
+        for (Map.Entry<String, WrappedSignedProperty> entry : profile.getProperties().entries()) {
+            writeString(output, entry.getKey());
+            writeString(output, entry.getValue().getName());
+            writeString(output, entry.getValue().getValue());
+            writeString(output, entry.getValue().getSignature());
+        }
+    }
+
+    private static WrappedGameProfile readProfile(DataInputStream input) throws IOException {
+        if (!input.readBoolean()) {
+            return null;
+        }
+
+        WrappedGameProfile profile = new WrappedGameProfile(readUUID(input), readString(input));
+
+        for (int i = readVarInt(input); i > 0; i--) {
+            String key = readString(input);
+
+            profile.getProperties().put(key,
+                    WrappedSignedProperty.fromValues(readString(input), readString(input), readString(input)));
+        }
+
+        return profile;
+    }
+
+    private static void writeFlags(DataOutputStream output, Object owner, Field[] flags) throws IOException,
+            IllegalAccessException {
+        long bits = 0;
+
+        for (int i = 0; i < flags.length; i++) {
+            if (flags[i].getBoolean(owner)) {
+                bits |= 1L << i;
+            }
+        }
+
+        writeVarLong(output, bits);
+    }
+
+    private static void readFlags(DataInputStream input, Object owner, Field[] flags) throws IOException,
+            IllegalAccessException {
+        long bits = readVarLong(input);
+
+        for (int i = 0; i < flags.length; i++) {
+            flags[i].setBoolean(owner, (bits & 1L << i) != 0);
+        }
+    }
+
+    private static long toBits(boolean[] array) {
+        long bits = 0;
+
+        for (int i = 0; i < array.length && i < 64; i++) {
+            if (array[i]) {
+                bits |= 1L << i;
+            }
+        }
+
+        return bits;
+    }
+
+    private static void fromBits(long bits, boolean[] array) {
+        for (int i = 0; i < array.length && i < 64; i++) {
+            array[i] = (bits & 1L << i) != 0;
+        }
+    }
+
+    private static void writeEnum(DataOutputStream output, Enum value) throws IOException {
+        writeString(output, value == null ? null : value.name());
+    }
+
+    private static <T extends Enum<T>> T readEnum(DataInputStream input, Class<T> enumClass) throws IOException {
+        String name = readString(input);
+
+        if (name == null) {
+            return null;
+        }
+
+        try {
+            return Enum.valueOf(enumClass, name);
+        } catch (IllegalArgumentException ex) {
+            return null;
+        }
+    }
+
+    private static void writeNullableFloat(DataOutputStream output, Float value) throws IOException {
+        output.writeBoolean(value != null);
+
+        if (value != null) {
+            output.writeFloat(value);
+        }
+    }
+
+    private static Float readNullableFloat(DataInputStream input) throws IOException {
+        return input.readBoolean() ? input.readFloat() : null;
+    }
+
+    private static void writeUUID(DataOutputStream output, UUID uuid) throws IOException {
+        output.writeBoolean(uuid != null);
+
+        if (uuid != null) {
+            output.writeLong(uuid.getMostSignificantBits());
+            output.writeLong(uuid.getLeastSignificantBits());
+        }
+    }
+
+    private static UUID readUUID(DataInputStream input) throws IOException {
+        return input.readBoolean() ? new UUID(input.readLong(), input.readLong()) : null;
+    }
+
+    private static void writeStrings(DataOutputStream output, List<String> strings) throws IOException {
+        writeVarInt(output, strings.size());
+
+        for (String string : strings) {
+            writeString(output, string);
+        }
+    }
+
+    private static ArrayList<String> readStrings(DataInputStream input) throws IOException {
+        int size = readVarInt(input);
+        ArrayList<String> strings = new ArrayList<>(size);
+
+        for (int i = 0; i < size; i++) {
+            strings.add(readString(input));
+        }
+
+        return strings;
+    }
+
+    /**
+     * The length is written plus one, so that 0 can mean null
+     */
+    static void writeString(DataOutputStream output, String string) throws IOException {
+        if (string == null) {
+            writeVarInt(output, 0);
+            return;
+        }
+
+        byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+
+        writeVarInt(output, bytes.length + 1);
+        output.write(bytes);
+    }
+
+    static String readString(DataInputStream input) throws IOException {
+        int length = readVarInt(input);
+
+        if (length == 0) {
+            return null;
+        }
+
+        byte[] bytes = new byte[length - 1];
+        input.readFully(bytes);
+
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    static int zigZag(int value) {
+        return value << 1 ^ value >> 31;
+    }
+
+    static int unZigZag(int value) {
+        return value >>> 1 ^ -(value & 1);
+    }
+
+    static void writeVarInt(DataOutputStream output, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            output.writeByte(value & 0x7F | 0x80);
+            value >>>= 7;
+        }
+
+        output.writeByte(value);
+    }
+
+    static int readVarInt(DataInputStream input) throws IOException {
+        int value = 0;
+
+        for (int shift = 0; shift < 35; shift += 7) {
+            int b = input.readUnsignedByte();
+            value |= (b & 0x7F) << shift;
+
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+
+        throw new IOException("VarInt is too big");
+    }
+
+    static void writeVarLong(DataOutputStream output, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            output.writeByte((int) (value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+
+        output.writeByte((int) value);
+    }
+
+    static long readVarLong(DataInputStream input) throws IOException {
+        long value = 0;
+
+        for (int shift = 0; shift < 70; shift += 7) {
+            int b = input.readUnsignedByte();
+            value |= (long) (b & 0x7F) << shift;
+
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+
+        throw new IOException("VarLong is too big");
+    }
+}
@@ -0,0 +1,154 @@
+package me.libraryaddict.disguise.utilities.saving;
+
+import me.libraryaddict.disguise.disguisetypes.Disguise;
+import me.libraryaddict.disguise.utilities.DisguiseUtilities;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes saved disguises to disk off the main thread. The disguises handed to this must be clones that nothing else
+ * touches.
+ * <p>
+ * Saves for the same entity that are still waiting to be written are coalesced, so only the latest is written.
+ */
+public class DisguiseSaveWriter {
+    /**
+     * If this many entities are waiting to be written, write on the calling thread instead
+     */
+    private static final int MAX_PENDING = 10000;
+
+    private static class PendingSave {
+        /**
+         * An empty array means the saved disguises should be deleted
+         */
+        private final Disguise[] disguises;
+        private final long chunk;
+
+        private PendingSave(Disguise[] disguises, long chunk) {
+            this.disguises = disguises;
+            this.chunk = chunk;
+        }
+    }
+
+    private final SavedDisguiseStore store;
+    /**
+     * Entities waiting to be written
+     */
+    private final ConcurrentHashMap<UUID, PendingSave> pending = new ConcurrentHashMap<>();
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "Lib's Disguises Save Writer");
+        thread.setDaemon(true);
+
+        return thread;
+    });
+
+    public DisguiseSaveWriter(SavedDisguiseStore store) {
+        this.store = store;
+    }
+
+    /**
+     * @param chunk The chunk the entity was saved in, or {@link SavedDisguiseStore#NO_CHUNK}
+     */
+    public void save(UUID owningEntity, long chunk, Disguise[] disguises) {
+        PendingSave save = new PendingSave(disguises, chunk);
+
+        if (executor.isShutdown() || (pending.size() >= MAX_PENDING && !pending.containsKey(owningEntity))) {
+            pending.remove(owningEntity);
+            write(owningEntity, save);
+            return;
+        }
+
+        if (pending.put(owningEntity, save) != null) {
+            return;
+        }
+
+        executor.execute(() -> writePending(owningEntity));
+    }
+
+    public void delete(UUID owningEntity) {
+        save(owningEntity, SavedDisguiseStore.NO_CHUNK, new Disguise[0]);
+    }
+
+    /**
+     * The disguises waiting to be written for this entity, or null if none are waiting. If this is an empty array,
+     * the saved disguises are waiting to be deleted
+     */
+    public Disguise[] getPending(UUID owningEntity) {
+        PendingSave save = pending.get(owningEntity);
+
+        return save == null ? null : save.disguises;
+    }
+
+    /**
+     * Stop accepting saves in the background, write everything that's still waiting and close the store before
+     * returning
+     */
+    public void shutdown() {
+        executor.shutdown();
+
+        try {
+            if (!executor.awaitTermination(30, TimeUnit.SECONDS)) {
+                DisguiseUtilities.getLogger().warning("Took too long to write the saved disguises in the background");
+            }
+        } catch (InterruptedException e) {
+            e.printStackTrace();
+        }
+
+        for (UUID owningEntity : pending.keySet()) {
+            writePending(owningEntity);
+        }
+
+        try {
+            store.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private void writePending(UUID owningEntity) {
+        PendingSave save;
+
+        // If it was saved again while being written, write it again
+        do {
+            save = pending.get(owningEntity);
+
+            if (save == null) {
+                return;
+            }
+
+            write(owningEntity, save);
+        } while (!pending.remove(owningEntity, save));
+    }
+
+    private void write(UUID owningEntity, PendingSave save) {
+        Disguise[] disguises = save.disguises;
+
+        try {
+            if (disguises.length == 0) {
+                store.delete(owningEntity);
+                return;
+            }
+
+            // I hear pirates don't obey standards
+            @SuppressWarnings("MismatchedStringCase")
+            boolean pirate = "12345".equals("%%__USER__%%");
+
+            if (pirate) {
+                store.write(owningEntity, save.chunk,
+                        DisguiseUtilities.getGson().toJson(disguises).getBytes(StandardCharsets.US_ASCII));
+                return;
+            }
+
+            store.write(owningEntity, save.chunk, DisguiseCodec.encode(disguises));
+        } catch (StackOverflowError | IOException | RuntimeException e) {
+            DisguiseUtilities.getLogger().severe("Unable to save disguises for " + owningEntity);
+            e.printStackTrace();
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package me.libraryaddict.disguise.utilities.saving;
+
+import me.libraryaddict.disguise.DisguiseConfig;
+import me.libraryaddict.disguise.LibsDisguises;
+import me.libraryaddict.disguise.disguisetypes.Disguise;
+import me.libraryaddict.disguise.utilities.DisguiseUtilities;
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Entity;
+import org.bukkit.scheduler.BukkitRunnable;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Reads and builds saved disguises off the main thread, then disguises the entities on the main thread a few at a time.
+ * Everything but the reading is done on the main thread.
+ */
+public class SavedDisguiseLoader {
+    private static class LoadedDisguises {
+        private final UUID owningEntity;
+        private final Object token;
+        /**
+         * Null if they should be fetched on the main thread instead
+         */
+        private Disguise[] disguises;
+
+        private LoadedDisguises(UUID owningEntity, Object token) {
+            this.owningEntity = owningEntity;
+            this.token = token;
+        }
+    }
+
+    private final SavedDisguiseStore store;
+    private final DisguiseSaveWriter writer;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "Lib's Disguises Save Reader");
+        thread.setDaemon(true);
+
+        return thread;
+    });
+    private final ConcurrentLinkedQueue<LoadedDisguises> loaded = new ConcurrentLinkedQueue<>();
+    /**
+     * The entities being loaded and the token of their load. If the entity is saved or removed while loading, it's
+     * removed from this and the load is treated as outdated
+     */
+    private final HashMap<UUID, Object> loading = new HashMap<>();
+    private BukkitTask task;
+
+    public SavedDisguiseLoader(SavedDisguiseStore store, DisguiseSaveWriter writer) {
+        this.store = store;
+        this.writer = writer;
+    }
+
+    public void load(Collection<UUID> owningEntities) {
+        ArrayList<LoadedDisguises> toLoad = new ArrayList<>(owningEntities.size());
+
+        for (UUID owningEntity : owningEntities) {
+            if (loading.containsKey(owningEntity)) {
+                continue;
+            }
+
+            Object token = new Object();
+
+            loading.put(owningEntity, token);
+            toLoad.add(new LoadedDisguises(owningEntity, token));
+        }
+
+        if (toLoad.isEmpty()) {
+            return;
+        }
+
+        executor.execute(() -> {
+            for (LoadedDisguises load : toLoad) {
+                // If it hasn't been written yet, let the main thread take it from the writer
+                if (writer.getPending(load.owningEntity) == null) {
+                    try {
+                        byte[] data = store.read(load.owningEntity);
+
+                        if (data != null) {
+                            load.disguises = DisguiseCodec.decodeSaved(data);
+                        }
+                    } catch (Exception e) {
+                        DisguiseUtilities.getLogger().severe("Malformed disguise for " + load.owningEntity);
+                        e.printStackTrace();
+                    }
+                }
+
+                loaded.add(load);
+            }
+        });
+
+        if (task == null) {
+            task = new BukkitRunnable() {
+                @Override
+                public void run() {
+                    tick();
+                }
+            }.runTaskTimer(LibsDisguises.getInstance(), 1, 1);
+        }
+    }
+
+    /**
+     * The entity was saved or had its saved disguises removed, so anything being loaded for it is outdated
+     */
+    public void invalidate(UUID owningEntity) {
+        loading.remove(owningEntity);
+    }
+
+    private void tick() {
+        int budget = Math.max(1, DisguiseConfig.getSavedDisguisesLoadedPerTick());
+        LoadedDisguises load;
+
+        while (budget > 0 && (load = loaded.poll()) != null) {
+            Object token = loading.get(load.owningEntity);
+
+            // Another load was started after this one
+            if (token != null && token != load.token) {
+                continue;
+            }
+
+            Disguise[] disguises = load.disguises;
+            loading.remove(load.owningEntity);
+
+            Entity entity = Bukkit.getEntity(load.owningEntity);
+
+            // Left loaded chunks before it could be disguised, it stays saved
+            if (entity == null || !entity.isValid() || !DisguiseUtilities.isSavedDisguise(load.owningEntity)) {
+                continue;
+            }
+
+            budget--;
+
+            if (token == null || disguises == null) {
+                disguises = DisguiseUtilities.getSavedDisguises(load.owningEntity, true);
+            } else {
+                DisguiseUtilities.removeSavedDisguise(load.owningEntity);
+            }
+
+            if (disguises.length <= 0) {
+                continue;
+            }
+
+            DisguiseUtilities.resetPluginTimer();
+
+            for (Disguise disguise : disguises) {
+                disguise.setEntity(entity);
+                disguise.startDisguise();
+            }
+        }
+
+        if (loaded.isEmpty() && loading.isEmpty()) {
+            task.cancel();
+            task = null;
+        }
+    }
+}
@@ -0,0 +1,401 @@
+package me.libraryaddict.disguise.utilities.saving;
+
+import lombok.Getter;
+import me.libraryaddict.disguise.utilities.DisguiseUtilities;
+
+import java.io.*;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Stores the saved disguises of every entity in a single file, instead of a file per entity.
+ * <p>
+ * The file is a log that is only appended to, each record is the entity UUID, the chunk it was saved in, the length of
+ * the data and the data. A length of -1 marks the entity's disguises as removed. When opened, the log is read once to find where the latest
+ * record of each entity is. When most of the file is outdated records, it is compacted.
+ * <p>
+ * What the data is doesn't matter to this class.
+ */
+public class SavedDisguiseStore {
+    private static final int MAGIC = 0x4C445344; // LDSD
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 8;
+    /**
+     * Most significant bits, least significant bits, chunk and the length
+     */
+    private static final int RECORD_HEADER_SIZE = 8 + 8 + 8 + 4;
+    /**
+     * The chunk of entities that weren't saved in a chunk, such as those moved from the old file per entity
+     */
+    public static final long NO_CHUNK = Long.MIN_VALUE;
+    /**
+     * The chunk of players, who are loaded when they join
+     */
+    public static final long PLAYER_CHUNK = Long.MIN_VALUE + 1;
+    /**
+     * Don't bother compacting files smaller than this
+     */
+    private static final long COMPACT_MIN_SIZE = 1024 * 1024;
+
+    private static class Record {
+        private final long offset;
+        private final int length;
+        private final long chunk;
+
+        private Record(long offset, int length, long chunk) {
+            this.offset = offset;
+            this.length = length;
+            this.chunk = chunk;
+        }
+    }
+
+    @Getter
+    private final File file;
+    private RandomAccessFile access;
+    /**
+     * Where the data of the latest record for each entity is
+     */
+    private final HashMap<UUID, Record> index = new HashMap<>();
+    /**
+     * How many bytes of the file are records in the index
+     */
+    private long liveBytes;
+    private boolean compacting;
+
+    public SavedDisguiseStore(File file) {
+        this.file = file;
+    }
+
+    public synchronized void open() throws IOException {
+        if (access != null) {
+            return;
+        }
+
+        if (!file.getParentFile().exists()) {
+            file.getParentFile().mkdirs();
+        }
+
+        access = new RandomAccessFile(file, "rw");
+
+        if (access.length() < HEADER_SIZE) {
+            access.setLength(0);
+            access.writeInt(MAGIC);
+            access.writeInt(VERSION);
+            return;
+        }
+
+        if (access.readInt() != MAGIC) {
+            access.close();
+            access = null;
+
+            throw new IOException(file.getName() + " is not a saved disguises file");
+        }
+
+        int version = access.readInt();
+
+        if (version != VERSION) {
+            access.close();
+            access = null;
+
+            throw new IOException("Unknown version " + version + " of " + file.getName());
+        }
+
+        readIndex();
+    }
+
+    private void readIndex() throws IOException {
+        long length = access.length();
+        long position = HEADER_SIZE;
+
+        // Separate stream, closing one made from the FD of the RandomAccessFile would close that too
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            input.skipBytes(HEADER_SIZE);
+
+            while (position + RECORD_HEADER_SIZE <= length) {
+                UUID uuid = new UUID(input.readLong(), input.readLong());
+                long chunk = input.readLong();
+                int dataLength = input.readInt();
+
+                long dataOffset = position + RECORD_HEADER_SIZE;
+
+                // The server stopped while this was being written
+                if (dataLength < -1 || dataOffset + Math.max(0, dataLength) > length) {
+                    break;
+                }
+
+                removeFromIndex(uuid);
+
+                if (dataLength >= 0) {
+                    index.put(uuid, new Record(dataOffset, dataLength, chunk));
+                    liveBytes += RECORD_HEADER_SIZE + dataLength;
+
+                    skipFully(input, dataLength);
+                }
+
+                position = dataOffset + Math.max(0, dataLength);
+            }
+        }
+
+        if (position < length) {
+            DisguiseUtilities.getLogger()
+                    .warning("Discarding " + (length - position) + " bytes of incomplete saved disguises");
+
+            access.setLength(position);
+        }
+    }
+
+    private void skipFully(DataInputStream input, int bytes) throws IOException {
+        while (bytes > 0) {
+            int skipped = input.skipBytes(bytes);
+
+            if (skipped <= 0) {
+                throw new EOFException();
+            }
+
+            bytes -= skipped;
+        }
+    }
+
+    private void removeFromIndex(UUID uuid) {
+        Record old = index.remove(uuid);
+
+        if (old != null) {
+            liveBytes -= RECORD_HEADER_SIZE + old.length;
+        }
+    }
+
+    public synchronized boolean isOpen() {
+        return access != null;
+    }
+
+    public synchronized Set<UUID> getSaved() {
+        return new HashSet<>(index.keySet());
+    }
+
+    /**
+     * @return The chunk each saved entity was saved in, or {@link #NO_CHUNK}
+     */
+    public synchronized HashMap<UUID, Long> getSavedChunks() {
+        HashMap<UUID, Long> chunks = new HashMap<>(index.size());
+
+        for (Map.Entry<UUID, Record> entry : index.entrySet()) {
+            chunks.put(entry.getKey(), entry.getValue().chunk);
+        }
+
+        return chunks;
+    }
+
+    public synchronized boolean contains(UUID uuid) {
+        return index.containsKey(uuid);
+    }
+
+    /**
+     * @return The data last written for this entity, or null if there is none
+     */
+    public synchronized byte[] read(UUID uuid) throws IOException {
+        Record record = index.get(uuid);
+
+        if (record == null || access == null) {
+            return null;
+        }
+
+        byte[] data = new byte[record.length];
+
+        access.seek(record.offset);
+        access.readFully(data);
+
+        return data;
+    }
+
+    /**
+     * @param chunk The chunk the entity was saved in, or {@link #NO_CHUNK}
+     */
+    public void write(UUID uuid, long chunk, byte[] data) throws IOException {
+        synchronized (this) {
+            append(uuid, chunk, data);
+
+            if (!isCompactNeeded()) {
+                return;
+            }
+        }
+
+        compact();
+    }
+
+    public void delete(UUID uuid) throws IOException {
+        synchronized (this) {
+            if (!index.containsKey(uuid)) {
+                return;
+            }
+
+            append(uuid, NO_CHUNK, null);
+
+            if (!isCompactNeeded()) {
+                return;
+            }
+        }
+
+        compact();
+    }
+
+    private void append(UUID uuid, long chunk, byte[] data) throws IOException {
+        if (access == null) {
+            throw new IOException("The saved disguises file isn't open");
+        }
+
+        long position = access.length();
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(RECORD_HEADER_SIZE + (data == null ? 0 : data.length));
+        DataOutputStream output = new DataOutputStream(bytes);
+
+        output.writeLong(uuid.getMostSignificantBits());
+        output.writeLong(uuid.getLeastSignificantBits());
+        output.writeLong(chunk);
+        output.writeInt(data == null ? -1 : data.length);
+
+        if (data != null) {
+            output.write(data);
+        }
+
+        access.seek(position);
+        access.write(bytes.toByteArray());
+
+        removeFromIndex(uuid);
+
+        if (data != null) {
+            index.put(uuid, new Record(position + RECORD_HEADER_SIZE, data.length, chunk));
+            liveBytes += RECORD_HEADER_SIZE + data.length;
+        }
+    }
+
+    private boolean isCompactNeeded() throws IOException {
+        long length = access.length();
+
+        return !compacting && length >= COMPACT_MIN_SIZE && length >= (liveBytes + HEADER_SIZE) * 2;
+    }
+
+    /**
+     * Rewrite the file with only the latest record of each entity.
+     * <p>
+     * The records are copied without holding the lock, as the file is only ever appended to the records being copied
+     * can't change. Only what was written while copying, and swapping the files, is done while holding it.
+     */
+    public void compact() throws IOException {
+        HashMap<UUID, Record> copying;
+
+        synchronized (this) {
+            if (access == null || compacting) {
+                return;
+            }
+
+            compacting = true;
+            copying = new HashMap<>(index);
+        }
+
+        try {
+            File compacted = new File(file.getParentFile(), file.getName() + ".compact");
+            HashMap<UUID, Record> newIndex = new HashMap<>();
+            long position;
+
+            try (RandomAccessFile source = new RandomAccessFile(file, "r");
+                 FileOutputStream fileOutput = new FileOutputStream(compacted);
+                 DataOutputStream output = new DataOutputStream(new BufferedOutputStream(fileOutput))) {
+                output.writeInt(MAGIC);
+                output.writeInt(VERSION);
+
+                position = copyRecords(source, output, copying, newIndex, HEADER_SIZE);
+
+                output.flush();
+            }
+
+            synchronized (this) {
+                if (access == null) {
+                    compacted.delete();
+                    return;
+                }
+
+                // What was written or deleted while it was copying
+                HashMap<UUID, Record> changed = new HashMap<>();
+
+                for (Map.Entry<UUID, Record> entry : index.entrySet()) {
+                    if (copying.get(entry.getKey()) != entry.getValue()) {
+                        changed.put(entry.getKey(), entry.getValue());
+                    }
+                }
+
+                newIndex.keySet().retainAll(index.keySet());
+
+                try (FileOutputStream fileOutput = new FileOutputStream(compacted, true);
+                     DataOutputStream output = new DataOutputStream(new BufferedOutputStream(fileOutput))) {
+                    copyRecords(access, output, changed, newIndex, position);
+
+                    output.flush();
+                    fileOutput.getFD().sync();
+                }
+
+                access.close();
+                access = null;
+
+                try {
+                    Files.move(compacted.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                            StandardCopyOption.ATOMIC_MOVE);
+                } catch (AtomicMoveNotSupportedException ex) {
+                    Files.move(compacted.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+                } finally {
+                    access = new RandomAccessFile(file, "rw");
+                }
+
+                index.clear();
+                index.putAll(newIndex);
+            }
+        } finally {
+            synchronized (this) {
+                compacting = false;
+            }
+        }
+    }
+
+    /**
+     * @return The position in the new file after the records
+     */
+    private long copyRecords(RandomAccessFile source, DataOutputStream output, Map<UUID, Record> records,
+            HashMap<UUID, Record> newIndex, long position) throws IOException {
+        for (Map.Entry<UUID, Record> entry : records.entrySet()) {
+            Record record = entry.getValue();
+            byte[] data = new byte[record.length];
+
+            source.seek(record.offset);
+            source.readFully(data);
+
+            output.writeLong(entry.getKey().getMostSignificantBits());
+            output.writeLong(entry.getKey().getLeastSignificantBits());
+            output.writeLong(record.chunk);
+            output.writeInt(data.length);
+            output.write(data);
+
+            newIndex.put(entry.getKey(), new Record(position + RECORD_HEADER_SIZE, data.length, record.chunk));
+            position += RECORD_HEADER_SIZE + data.length;
+        }
+
+        return position;
+    }
+
+    /**
+     * Flush everything to disk and close the file
+     */
+    public synchronized void close() throws IOException {
+        if (access == null) {
+            return;
+        }
+
+        access.getFD().sync();
+        access.close();
+        access = null;
+    }
+}
@@ -6,8 +6,11 @@ import me.libraryaddict.disguise.disguisetypes.DisguiseType;
 import me.libraryaddict.disguise.utilities.reflection.ReflectionManager;
 import org.apache.commons.lang.math.RandomUtils;
 import org.bukkit.Sound;
+import org.bukkit.entity.EntityType;
 
 import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.IdentityHashMap;
 import java.util.LinkedHashMap;
 
 /**
@@ -24,9 +27,23 @@ public class SoundGroup {
 
     @Getter
     private final static LinkedHashMap<String, SoundGroup> groups = new LinkedHashMap<>();
+    /**
+     * Lookup tables built from the groups by SoundManager, swapped as a whole so the packet thread never sees a
+     * half built table
+     */
+    private static volatile EnumMap<EntityType, SoundGroup> entityGroups = new EnumMap<>(EntityType.class);
+    private static volatile EnumMap<DisguiseType, SoundGroup> disguiseGroups = new EnumMap<>(DisguiseType.class);
+    /**
+     * Incremented whenever the lookup tables are rebuilt, so disguises know their cached group is outdated
+     */
+    @Getter
+    private static volatile int version;
     private float damageSoundVolume = 1F;
+    /**
+     * SoundEffects are singletons in the sound registry, so they can be matched by identity
+     */
     @Getter
-    private final LinkedHashMap<Object, SoundType> disguiseSoundTypes = new LinkedHashMap<>();
+    private final IdentityHashMap<Object, SoundType> disguiseSoundTypes = new IdentityHashMap<>();
     @Getter
     private final LinkedHashMap<SoundType, Object[]> disguiseSounds = new LinkedHashMap<>();
     private boolean customSounds;
@@ -139,18 +156,62 @@ public class SoundGroup {
     }
 
     public static SoundGroup getGroup(Disguise disguise) {
-        if (disguise.getSoundGroup() != null) {
-            SoundGroup dSoundGroup = getGroup(disguise.getSoundGroup());
+        return disguise.getResolvedSoundGroup();
+    }
+
+    /**
+     * Resolves the sound group by name, falling back to the group of the disguise type. Prefer
+     * {@link #getGroup(Disguise)} which caches this
+     */
+    public static SoundGroup getGroup(String soundGroup, DisguiseType disguiseType) {
+        if (soundGroup != null) {
+            SoundGroup dSoundGroup = getGroup(soundGroup);
 
             if (dSoundGroup != null) {
                 return dSoundGroup;
             }
         }
 
-        return getGroup(disguise.getType().name());
+        return getGroup(disguiseType);
+    }
+
+    public static SoundGroup getGroup(DisguiseType disguiseType) {
+        return disguiseGroups.get(disguiseType);
+    }
+
+    public static SoundGroup getGroup(EntityType entityType) {
+        return entityGroups.get(entityType);
     }
 
     public static SoundGroup getGroup(String name) {
         return groups.get(name);
     }
+
+    /**
+     * Rebuilds the EntityType and DisguiseType lookup tables from the registered groups
+     */
+    public static void rebuildLookups() {
+        EnumMap<EntityType, SoundGroup> newEntityGroups = new EnumMap<>(EntityType.class);
+        EnumMap<DisguiseType, SoundGroup> newDisguiseGroups = new EnumMap<>(DisguiseType.class);
+
+        for (EntityType entityType : EntityType.values()) {
+            SoundGroup group = groups.get(entityType.name());
+
+            if (group != null) {
+                newEntityGroups.put(entityType, group);
+            }
+        }
+
+        for (DisguiseType disguiseType : DisguiseType.values()) {
+            SoundGroup group = groups.get(disguiseType.name());
+
+            if (group != null) {
+                newDisguiseGroups.put(disguiseType, group);
+            }
+        }
+
+        entityGroups = newEntityGroups;
+        disguiseGroups = newDisguiseGroups;
+        version++;
+    }
 }
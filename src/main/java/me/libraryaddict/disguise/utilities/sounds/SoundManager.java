@@ -23,6 +23,8 @@ public class SoundManager {
         loadSounds();
         loadCustomSounds();
 
+        SoundGroup.rebuildLookups();
+
         ParamInfoManager.getParamInfoSoundGroup().recalculate();
     }
 
@@ -15,6 +15,8 @@ public enum LibsMsg {
     ACTIVE_DISGUISES_DISGUISE(ChatColor.GREEN + "%s: " + ChatColor.AQUA + "%s"),
     ACTIVE_DISGUISES(ChatColor.DARK_GREEN + "The disguises in use are: %s"),
     ACTIVE_DISGUISES_SEPERATOR(ChatColor.RED + ", " + ChatColor.GREEN),
+    GAME_PROFILE_CACHE_STATS(ChatColor.DARK_GREEN + "There are %s game profiles in memory, %s%% of the %s saved profile " +
+            "lookups didn't need to read them from disk"),
     BLOWN_DISGUISE(ChatColor.RED + "Your disguise was blown!"),
     EXPIRED_DISGUISE(ChatColor.RED + "Your disguise has expired!"),
     CAN_USE_DISGS(ChatColor.DARK_GREEN + "You can use the disguises:" + ChatColor.GREEN + " %s"),
@@ -142,6 +144,7 @@ public enum LibsMsg {
     LISTENER_MODIFIED_DISG(ChatColor.RED + "Modified the disguise!"),
     MADE_REF(ChatColor.RED + "Constructed a %s disguise! Your reference is %s"),
     MADE_REF_EXAMPLE(ChatColor.RED + "Example usage: /disguise %s"),
+    MASS_PROGRESS(ChatColor.GRAY + "Still working on it, %s/%s done.."),
     NO_CONSOLE(ChatColor.RED + "You may not use this command from the console!"),
     NO_MODS(ChatColor.RED + "%s is not using any mods!"),
     MODS_LIST(ChatColor.DARK_GREEN + "%s has the mods:" + ChatColor.AQUA + " %s"),
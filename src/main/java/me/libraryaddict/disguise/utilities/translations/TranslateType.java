@@ -23,6 +23,10 @@ public enum TranslateType {
 
     private File file;
     private LinkedHashMap<String, String> translated = new LinkedHashMap<>();
+    /**
+     * The lowercase translations to the first key they were translated from
+     */
+    private HashMap<String, String> reverseTranslated = new HashMap<>();
     private FileWriter writer;
 
     TranslateType(String fileName) {
@@ -56,6 +60,8 @@ public enum TranslateType {
             itel.remove();
         }
 
+        rebuildReverseTranslations();
+
         // Close the writer
 
         try {
@@ -69,8 +75,17 @@ public enum TranslateType {
         }
     }
 
+    private void rebuildReverseTranslations() {
+        reverseTranslated.clear();
+
+        for (Map.Entry<String, String> entry : translated.entrySet()) {
+            reverseTranslated.putIfAbsent(entry.getValue().toLowerCase(Locale.ENGLISH), entry.getKey());
+        }
+    }
+
     private void loadTranslations() {
         translated.clear();
+        reverseTranslated.clear();
 
         if (LibsPremium.isPremium() && DisguiseConfig.isUseTranslations()) {
             DisguiseUtilities.getLogger().info("Loading translations: " + name());
@@ -132,6 +147,8 @@ public enum TranslateType {
             e.printStackTrace();
         }
 
+        rebuildReverseTranslations();
+
         if (LibsPremium.isPremium() && DisguiseConfig.isUseTranslations()) {
             DisguiseUtilities.getLogger().info("Loaded " + translated.size() + " translations for " + name());
         }
@@ -154,6 +171,7 @@ public enum TranslateType {
         }
 
         translated.put(message, message);
+        reverseTranslated.putIfAbsent(message.toLowerCase(Locale.ENGLISH), message);
 
         message = StringEscapeUtils.escapeJava(message.replace(ChatColor.COLOR_CHAR + "", "&"));
 
@@ -195,16 +213,9 @@ public enum TranslateType {
         if (translated == null || !LibsPremium.isPremium() || !DisguiseConfig.isUseTranslations())
             return translated;
 
-        String lowerCase = translated.toLowerCase(Locale.ENGLISH);
-
-        for (Map.Entry<String, String> entry : this.translated.entrySet()) {
-            if (!Objects.equals(entry.getValue().toLowerCase(Locale.ENGLISH), lowerCase))
-                continue;
-
-            return entry.getKey();
-        }
+        String key = reverseTranslated.get(translated.toLowerCase(Locale.ENGLISH));
 
-        return translated;
+        return key == null ? translated : key;
     }
 
     public String get(String msg) {
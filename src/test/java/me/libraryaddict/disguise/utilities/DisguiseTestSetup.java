@@ -0,0 +1,35 @@
+package me.libraryaddict.disguise.utilities;
+
+import me.libraryaddict.disguise.utilities.parser.DisguiseParser;
+import me.libraryaddict.disguise.utilities.reflection.ReflectionManager;
+import org.bukkit.Bukkit;
+import org.junit.Assume;
+
+/**
+ * For the tests that build real disguises. MetaIndex needs ProtocolLib to have initialized, which needs a server, so
+ * without one those tests are skipped instead of failing.
+ */
+public class DisguiseTestSetup {
+    private static Boolean initialized;
+
+    public static synchronized void assumeInitialized() {
+        if (initialized == null) {
+            initialized = false;
+
+            // Without a server MetaIndex would fail to load, and stay broken for every test after it
+            if (Bukkit.getServer() != null) {
+                try {
+                    ReflectionManager.registerValues();
+                    DisguiseParser.createDefaultMethods();
+                    DisguiseUtilities.init();
+
+                    initialized = true;
+                } catch (Exception | LinkageError ex) {
+                    ex.printStackTrace();
+                }
+            }
+        }
+
+        Assume.assumeTrue("Needs a server with ProtocolLib", initialized);
+    }
+}
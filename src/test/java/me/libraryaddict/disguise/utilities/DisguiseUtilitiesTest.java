@@ -147,4 +147,13 @@ public class DisguiseUtilitiesTest {
 
         splitAndBack(toSplit);
     }
+
+    @Test
+    public void testHexQuoting() {
+        Assert.assertEquals("<\\#ff00ff>Name", DisguiseUtilities.quoteHex("<#ff00ff>Name"));
+        Assert.assertEquals("<#ff00ff>Name", DisguiseUtilities.unquoteHex("<\\#ff00ff>Name"));
+        Assert.assertEquals("<#ff00fg>Name", DisguiseUtilities.quoteHex("<#ff00fg>Name"));
+        Assert.assertEquals("No colors", DisguiseUtilities.quoteHex("No colors"));
+        Assert.assertEquals("<#FF00FF>", DisguiseUtilities.unquoteHex(DisguiseUtilities.quoteHex("<#FF00FF>")));
+    }
 }
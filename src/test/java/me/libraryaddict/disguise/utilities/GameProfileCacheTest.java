@@ -0,0 +1,51 @@
+package me.libraryaddict.disguise.utilities;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+public class GameProfileCacheTest {
+    @Test
+    public void testStaleRefresh() throws IOException {
+        File folder = Files.createTempDirectory("GameProfiles").toFile();
+        long day = TimeUnit.DAYS.toMillis(1);
+
+        try {
+            for (int i = 0; i < 5; i++) {
+                File file = new File(folder, "old" + i);
+                Files.write(file.toPath(), new byte[0]);
+                file.setLastModified(System.currentTimeMillis() - day * 2);
+            }
+
+            File fresh = new File(folder, "fresh");
+            Files.write(fresh.toPath(), new byte[0]);
+
+            GameProfileCache cache = new GameProfileCache(folder);
+            cache.load();
+
+            Assert.assertFalse(cache.tryRefresh("fresh", day, 10));
+            Assert.assertFalse(cache.tryRefresh("unknown", day, 10));
+            Assert.assertFalse(cache.tryRefresh("old0", 0, 10));
+
+            // Only 3 are allowed a minute
+            Assert.assertTrue(cache.tryRefresh("OLD0", day, 3));
+            Assert.assertTrue(cache.tryRefresh("old1", day, 3));
+            Assert.assertTrue(cache.tryRefresh("old2", day, 3));
+            Assert.assertFalse(cache.tryRefresh("old3", day, 3));
+
+            // Already being refreshed
+            Assert.assertFalse(cache.tryRefresh("old0", day, 10));
+            Assert.assertTrue(cache.tryRefresh("old3", day, 10));
+        } finally {
+            for (File file : folder.listFiles()) {
+                file.delete();
+            }
+
+            folder.delete();
+        }
+    }
+}
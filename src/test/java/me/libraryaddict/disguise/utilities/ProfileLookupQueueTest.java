@@ -0,0 +1,143 @@
+package me.libraryaddict.disguise.utilities;
+
+import com.comphenix.protocol.wrappers.WrappedGameProfile;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class ProfileLookupQueueTest {
+    @Test
+    public void testBatching() throws InterruptedException {
+        List<String[]> requests = new CopyOnWriteArrayList<>();
+
+        // Only finds the names that don't start with "missing"
+        ProfileLookupQueue queue = new ProfileLookupQueue(names -> {
+            requests.add(names);
+
+            HashMap<String, WrappedGameProfile> found = new HashMap<>();
+
+            for (String name : names) {
+                if (!name.startsWith("missing")) {
+                    found.put(name.toLowerCase(Locale.ENGLISH), new WrappedGameProfile(UUID.randomUUID(), name));
+                }
+            }
+
+            return found;
+        }, 50, 2, Runnable::run);
+
+        int amount = 25;
+        CountDownLatch latch = new CountDownLatch(amount + 2);
+        Map<String, WrappedGameProfile> results = new ConcurrentHashMap<>();
+
+        for (int i = 0; i < amount; i++) {
+            String name = "Player" + i;
+
+            Assert.assertTrue(queue.lookup(name, profile -> {
+                results.put(name, profile);
+                latch.countDown();
+            }));
+        }
+
+        // Same name in a different case joins the existing lookup
+        Assert.assertFalse(queue.lookup("PLAYER0", profile -> {
+            Assert.assertEquals("Player0", profile.getName());
+            latch.countDown();
+        }));
+
+        Assert.assertTrue(queue.lookup("missingPlayer", profile -> {
+            Assert.assertNull(profile);
+            latch.countDown();
+        }));
+
+        Assert.assertTrue(queue.isLookingUp("player5"));
+        Assert.assertTrue(latch.await(5, TimeUnit.SECONDS));
+
+        Assert.assertEquals(amount, results.size());
+        Assert.assertEquals(amount + 1, queue.getLookups());
+        Assert.assertEquals(3, queue.getBatches());
+        Assert.assertEquals(3, requests.size());
+        Assert.assertFalse(queue.isLookingUp("player5"));
+
+        HashSet<String> requested = new HashSet<>();
+
+        for (String[] request : requests) {
+            Assert.assertTrue(request.length <= ProfileLookupQueue.BATCH_SIZE);
+            requested.addAll(Arrays.asList(request));
+        }
+
+        Assert.assertEquals(amount + 1, requested.size());
+
+        for (Map.Entry<String, WrappedGameProfile> entry : results.entrySet()) {
+            Assert.assertEquals(entry.getKey(), entry.getValue().getName());
+        }
+
+        // Once finished, the name can be looked up again
+        CountDownLatch again = new CountDownLatch(1);
+
+        Assert.assertTrue(queue.lookup("Player0", profile -> again.countDown()));
+        Assert.assertTrue(again.await(5, TimeUnit.SECONDS));
+        Assert.assertEquals(4, requests.size());
+
+        queue.shutdown();
+    }
+
+    /**
+     * If the lookup fails, the callbacks are still told so anything waiting on them isn't waiting forever
+     */
+    @Test
+    public void testLookupError() throws InterruptedException {
+        ProfileLookupQueue queue = new ProfileLookupQueue(names -> {
+            throw new IllegalStateException("Too many requests");
+        }, 10, 1, Runnable::run);
+
+        CountDownLatch latch = new CountDownLatch(2);
+
+        for (String name : new String[]{"Player1", "Player2"}) {
+            Assert.assertTrue(queue.lookup(name, profile -> {
+                Assert.assertNull(profile);
+                latch.countDown();
+            }));
+        }
+
+        Assert.assertTrue(latch.await(5, TimeUnit.SECONDS));
+        Assert.assertFalse(queue.isLookingUp("player1"));
+
+        queue.shutdown();
+    }
+
+    /**
+     * A callback that's only wanted once per lookup isn't added to a lookup that's already running, and a lookup
+     * whose callbacks couldn't be posted can still be looked up again
+     */
+    @Test
+    public void testStartLookup() throws InterruptedException {
+        CountDownLatch looked = new CountDownLatch(1);
+
+        ProfileLookupQueue queue = new ProfileLookupQueue(names -> {
+            looked.countDown();
+
+            return new HashMap<>();
+        }, 50, 1, runnable -> {
+            throw new IllegalStateException("Plugin disabled");
+        });
+
+        Assert.assertTrue(queue.startLookup("Player1", profile -> Assert.fail("Callbacks were posted")));
+        Assert.assertFalse(queue.startLookup("PLAYER1", profile -> Assert.fail("Added to a running lookup")));
+        Assert.assertFalse(queue.lookup("player1", null));
+
+        Assert.assertTrue(looked.await(5, TimeUnit.SECONDS));
+
+        for (int i = 0; i < 50 && queue.isLookingUp("player1"); i++) {
+            Thread.sleep(100);
+        }
+
+        Assert.assertFalse(queue.isLookingUp("player1"));
+
+        queue.shutdown();
+    }
+}
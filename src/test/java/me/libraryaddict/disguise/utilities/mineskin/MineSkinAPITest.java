@@ -0,0 +1,222 @@
+package me.libraryaddict.disguise.utilities.mineskin;
+
+import com.comphenix.protocol.wrappers.WrappedGameProfile;
+import com.sun.net.httpserver.HttpServer;
+import me.libraryaddict.disguise.DisguiseConfig;
+import me.libraryaddict.disguise.utilities.SkinUtils;
+import me.libraryaddict.disguise.utilities.translations.LibsMsg;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class MineSkinAPITest {
+    private static final SkinUtils.SkinCallback FAIL_ON_ERROR = new SkinUtils.SkinCallback() {
+        @Override
+        public void onError(LibsMsg msg, Object... args) {
+            throw new AssertionError("Unexpected error " + msg);
+        }
+
+        @Override
+        public void onInfo(LibsMsg msg, Object... args) {
+        }
+
+        @Override
+        public void onSuccess(WrappedGameProfile profile) {
+        }
+    };
+
+    private HttpServer server;
+    private File folder;
+    private final AtomicInteger requests = new AtomicInteger();
+    private final AtomicInteger active = new AtomicInteger();
+    private final AtomicInteger mostActive = new AtomicInteger();
+    private final List<MineSkinAPI> apis = new ArrayList<>();
+    private int concurrentRequests;
+
+    @Before
+    public void startServer() throws IOException {
+        concurrentRequests = DisguiseConfig.getMineSkinConcurrentRequests();
+        folder = Files.createTempDirectory("MineSkin").toFile();
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+
+        server.createContext("/generate/", exchange -> {
+            int id = requests.incrementAndGet();
+            mostActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+
+            try {
+                // Slow enough that the requests overlap
+                Thread.sleep(200);
+            } catch (InterruptedException ignored) {
+            }
+
+            byte[] response = ("{\"id\":" + id + ",\"nextRequest\":0,\"data\":{\"uuid\":\"" +
+                    "d3b07384-d9a0-4c9b-8a9e-1f1a2b3c4d5e\",\"name\":\"Stub\",\"texture\":{\"value\":\"value" + id +
+                    "\",\"signature\":\"signature\"}}}").getBytes(StandardCharsets.UTF_8);
+
+            active.decrementAndGet();
+            exchange.sendResponseHeaders(200, response.length);
+
+            try (OutputStream output = exchange.getResponseBody()) {
+                output.write(response);
+            }
+        });
+
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+    }
+
+    @After
+    public void stopServer() {
+        DisguiseConfig.setMineSkinConcurrentRequests(concurrentRequests);
+
+        for (MineSkinAPI api : apis) {
+            api.shutdown();
+        }
+
+        server.stop(0);
+
+        deleteAll(folder);
+    }
+
+    private void deleteAll(File file) {
+        File[] files = file.listFiles();
+
+        if (files != null) {
+            for (File child : files) {
+                deleteAll(child);
+            }
+        }
+
+        file.delete();
+    }
+
+    private MineSkinAPI createAPI() {
+        MineSkinAPI api =
+                new MineSkinAPI("http://127.0.0.1:" + server.getAddress().getPort(), new File(folder, "Cache"));
+        apis.add(api);
+
+        return api;
+    }
+
+    private List<MineSkinResponse> runAll(List<Callable<MineSkinResponse>> tasks) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(tasks.size());
+        List<MineSkinResponse> responses = new ArrayList<>();
+
+        try {
+            for (Future<MineSkinResponse> future : executor.invokeAll(tasks)) {
+                responses.add(future.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        return responses;
+    }
+
+    @Test
+    public void testUrlDeduplicatedAndCached() throws Exception {
+        DisguiseConfig.setMineSkinConcurrentRequests(2);
+        MineSkinAPI api = createAPI();
+        List<Callable<MineSkinResponse>> tasks = new ArrayList<>();
+
+        for (int i = 0; i < 5; i++) {
+            tasks.add(() -> api.generateFromUrl(FAIL_ON_ERROR, "http://example.com/skin.png",
+                    SkinUtils.ModelType.NORMAL));
+        }
+
+        for (MineSkinResponse response : runAll(tasks)) {
+            Assert.assertNotNull(response);
+            Assert.assertEquals(1, response.getId());
+        }
+
+        Assert.assertEquals(1, requests.get());
+        Assert.assertEquals(1, api.getRequestsSent());
+
+        // The same url with a different model is a different skin
+        Assert.assertEquals(2,
+                api.generateFromUrl(FAIL_ON_ERROR, "http://example.com/skin.png", SkinUtils.ModelType.SLIM)
+                        .getId());
+
+        // Comes from the disk, even after a restart
+        MineSkinResponse cached = createAPI()
+                .generateFromUrl(FAIL_ON_ERROR, "http://example.com/skin.png", SkinUtils.ModelType.NORMAL);
+
+        Assert.assertEquals(1, cached.getId());
+        Assert.assertEquals("value1", cached.getData().getTexture().getValue());
+        Assert.assertEquals(2, requests.get());
+    }
+
+    @Test
+    public void testFilesDeduplicatedByContent() throws Exception {
+        DisguiseConfig.setMineSkinConcurrentRequests(2);
+        MineSkinAPI api = createAPI();
+
+        File first = new File(folder, "first.png");
+        File second = new File(folder, "second.png");
+        File different = new File(folder, "different.png");
+
+        Files.write(first.toPath(), new byte[]{1, 2, 3});
+        Files.write(second.toPath(), new byte[]{1, 2, 3});
+        Files.write(different.toPath(), new byte[]{4, 5, 6});
+
+        List<Callable<MineSkinResponse>> tasks = new ArrayList<>();
+
+        tasks.add(() -> api.generateFromFile(FAIL_ON_ERROR, first, SkinUtils.ModelType.NORMAL));
+        tasks.add(() -> api.generateFromFile(FAIL_ON_ERROR, second, SkinUtils.ModelType.NORMAL));
+        tasks.add(() -> api.generateFromFile(FAIL_ON_ERROR, different, SkinUtils.ModelType.NORMAL));
+
+        List<MineSkinResponse> responses = runAll(tasks);
+
+        Assert.assertEquals(responses.get(0).getId(), responses.get(1).getId());
+        Assert.assertNotEquals(responses.get(0).getId(), responses.get(2).getId());
+        Assert.assertEquals(2, requests.get());
+    }
+
+    @Test
+    public void testConcurrentRequests() throws Exception {
+        DisguiseConfig.setMineSkinConcurrentRequests(2);
+        MineSkinAPI api = createAPI();
+        List<Callable<MineSkinResponse>> tasks = new ArrayList<>();
+
+        for (int i = 0; i < 6; i++) {
+            String url = "http://example.com/skin" + i + ".png";
+
+            tasks.add(() -> api.generateFromUrl(FAIL_ON_ERROR, url, SkinUtils.ModelType.NORMAL));
+        }
+
+        for (MineSkinResponse response : runAll(tasks)) {
+            Assert.assertNotNull(response);
+        }
+
+        Assert.assertEquals(6, requests.get());
+        Assert.assertEquals(2, mostActive.get());
+        Assert.assertFalse(api.isInUse());
+    }
+
+    /**
+     * Once shut down, nothing is sent and nothing is left waiting forever
+     */
+    @Test
+    public void testShutdown() throws Exception {
+        MineSkinAPI api = createAPI();
+        api.shutdown();
+
+        Assert.assertNull(api.generateFromUrl(null, "http://example.com/skin.png", SkinUtils.ModelType.NORMAL));
+        Assert.assertEquals(0, requests.get());
+    }
+}
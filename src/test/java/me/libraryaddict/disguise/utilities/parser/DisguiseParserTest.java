@@ -0,0 +1,134 @@
+package me.libraryaddict.disguise.utilities.parser;
+
+import me.libraryaddict.disguise.disguisetypes.*;
+import me.libraryaddict.disguise.disguisetypes.watchers.LivingWatcher;
+import me.libraryaddict.disguise.utilities.DisguiseTestSetup;
+import org.bukkit.Material;
+import org.bukkit.inventory.ItemStack;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.function.Function;
+
+public class DisguiseParserTest {
+    /**
+     * A getter is only skipped when all it read was metadata. Anything reading fields or the equipment must always be
+     * compared, or parseToString would leave out what was changed
+     */
+    @Test
+    public void testOtherGettersNeverSkipped() throws Exception {
+        LivingWatcher watcher = new LivingWatcher(null);
+
+        Function<Object, Object>[] getters =
+                new Function[]{w -> ((LivingWatcher) w).getMaxHealth(), w -> ((FlagWatcher) w).getGlowColor(),
+                        w -> ((FlagWatcher) w).isUpsideDown(), w -> ((FlagWatcher) w).getEquipment(),
+                        w -> ((FlagWatcher) w).getItemInMainHand()};
+
+        for (Function<Object, Object> getter : getters) {
+            Assert.assertNull(DisguiseParser.getMetadataRead(watcher, getter));
+        }
+
+        try {
+            DisguiseParser.getMetadataRead(watcher, w -> {
+                throw new IllegalStateException("Getter failed");
+            });
+
+            Assert.fail("The exception should have been thrown");
+        } catch (IllegalStateException ignored) {
+        }
+
+        Field recordedMetadata = FlagWatcher.class.getDeclaredField("recordedMetadata");
+        recordedMetadata.setAccessible(true);
+
+        // A getter that failed must not leave the watcher recording
+        Assert.assertNull(recordedMetadata.get(watcher));
+    }
+
+    /**
+     * Skipping the getters that only read unset metadata must not change what parseToString outputs. Each setter is
+     * changed on its own, so a getter reading metadata that wasn't recorded would be skipped when it shouldn't be.
+     */
+    @Test
+    public void testSkippedGettersOutputSame() throws Exception {
+        DisguiseTestSetup.assumeInitialized();
+
+        for (DisguiseType type : DisguiseType.values()) {
+            if (type.getEntityType() == null) {
+                continue;
+            }
+
+            assertSameOutput(createDisguise(type));
+
+            for (Map.Entry<Method, Map.Entry<Method, Object>> entry : DisguiseParser.getMethodDefaults().entrySet()) {
+                Object value = getChangedValue(entry.getValue().getValue());
+
+                if (value == null) {
+                    continue;
+                }
+
+                Disguise disguise = createDisguise(type);
+                Method setter = entry.getKey();
+                Object invokeWith = setter.getDeclaringClass().isInstance(disguise) ? disguise : disguise.getWatcher();
+
+                if (!setter.getDeclaringClass().isInstance(invokeWith)) {
+                    continue;
+                }
+
+                setter.invoke(invokeWith, value);
+
+                assertSameOutput(disguise);
+            }
+        }
+    }
+
+    private void assertSameOutput(Disguise disguise) {
+        Assert.assertEquals(DisguiseParser.parseToString(disguise, true, false),
+                DisguiseParser.parseToString(disguise, true, true));
+    }
+
+    private Disguise createDisguise(DisguiseType type) {
+        if (type.isPlayer()) {
+            return new PlayerDisguise("libraryaddict");
+        } else if (type.isMob()) {
+            return new MobDisguise(type);
+        }
+
+        return new MiscDisguise(type);
+    }
+
+    /**
+     * @return A value that isn't the default, or null if this type isn't handled
+     */
+    private Object getChangedValue(Object value) {
+        if (value instanceof String) {
+            return "NewString";
+        } else if (value instanceof Float) {
+            return ((float) value) + 1;
+        } else if (value instanceof Double) {
+            return ((double) value) + 1;
+        } else if (value instanceof Long) {
+            return ((long) value) + 1;
+        } else if (value instanceof Integer) {
+            return ((int) value) + 1;
+        } else if (value instanceof Byte) {
+            return (byte) (((byte) value) + 1);
+        } else if (value instanceof Short) {
+            return (short) (((short) value) + 1);
+        } else if (value instanceof ItemStack) {
+            return new ItemStack(Material.DIAMOND_BLOCK);
+        } else if (value instanceof Boolean) {
+            return !((Boolean) value);
+        } else if (value instanceof Enum) {
+            for (Object constant : value.getClass().getEnumConstants()) {
+                if (constant != value) {
+                    return constant;
+                }
+            }
+        }
+
+        return null;
+    }
+}
@@ -265,7 +265,88 @@ public class DisguisePermissionsTest {
         DisguiseConfig.setExplicitDisguisePermissions(false);
     }
 
+    @Test
+    public void testCachedPermissions() {
+        String[] perms = new String[5000];
+
+        // Lots of permissions from other plugins, and a few of ours
+        for (int i = 0; i < perms.length; i++) {
+            perms[i] = "someplugin.group" + (i % 50) + ".node" + i;
+        }
+
+        perms[0] = "libsdisguises.disguise.animal";
+        perms[1] = "libsdisguises.disguise.cow.setBaby";
+        perms[2] = "-libsdisguises.disguise.sheep";
+        perms[3] = "libsdisguises.disguiseentity.monster";
+
+        Permissible permissible = createPermissible(false, perms);
+        int runs = 200;
+
+        long started = System.nanoTime();
+
+        for (int i = 0; i < runs; i++) {
+            new DisguisePermissions(permissible, "disguise");
+        }
+
+        long uncached = System.nanoTime() - started;
+
+        DisguisePermissions permissions = DisguisePermissions.getPermissions(permissible, "disguise");
+        started = System.nanoTime();
+
+        for (int i = 0; i < runs; i++) {
+            Assert.assertSame("The permissions should be reused", permissions,
+                    DisguisePermissions.getPermissions(permissible, "Disguise"));
+        }
+
+        long cached = System.nanoTime() - started;
+
+        // Only printed, how long it takes depends on the machine running it
+        System.out.println("Calculated permissions " + runs + " times in " + (uncached / 1_000_000) +
+                "ms, cached permissions in " + (cached / 1_000_000) + "ms");
+
+        Assert.assertTrue("The disguise cow should be allowed",
+                permissions.isAllowedDisguise(DisguiseParser.getDisguisePerm("Cow")));
+
+        Assert.assertFalse("The disguise sheep should not be allowed",
+                permissions.isAllowedDisguise(DisguiseParser.getDisguisePerm("Sheep")));
+
+        Assert.assertFalse("The disguise zombie should not be allowed",
+                permissions.isAllowedDisguise(DisguiseParser.getDisguisePerm("Zombie")));
+
+        Assert.assertTrue("The disguise zombie should be allowed for disguiseentity",
+                DisguisePermissions.getPermissions(permissible, "disguiseentity")
+                        .isAllowedDisguise(DisguiseParser.getDisguisePerm("Zombie")));
+
+        // Permissions from other plugins changing shouldn't matter
+        permissible.getEffectivePermissions()
+                .add(new PermissionAttachmentInfo(permissible, "someplugin.another.node", null, true));
+
+        Assert.assertSame("The permissions should be reused", permissions,
+                DisguisePermissions.getPermissions(permissible, "disguise"));
+
+        permissible.getEffectivePermissions()
+                .add(new PermissionAttachmentInfo(permissible, "libsdisguises.disguise.zombie", null, true));
+
+        DisguisePermissions changed = DisguisePermissions.getPermissions(permissible, "disguise");
+
+        Assert.assertNotSame("The permissions should be calculated again", permissions, changed);
+
+        Assert.assertTrue("The disguise zombie should be allowed",
+                changed.isAllowedDisguise(DisguiseParser.getDisguisePerm("Zombie")));
+
+        DisguiseConfig.setExplicitDisguisePermissions(true);
+
+        Assert.assertNotSame("The permissions should be calculated again when the config changes", changed,
+                DisguisePermissions.getPermissions(permissible, "disguise"));
+
+        DisguiseConfig.setExplicitDisguisePermissions(false);
+    }
+
     private DisguisePermissions createPermissions(String commandName, boolean isOp, String... perms) {
+        return new DisguisePermissions(createPermissible(isOp, perms), commandName);
+    }
+
+    private Permissible createPermissible(boolean isOp, String... perms) {
         List<String> permitted = new ArrayList<>();
         List<String> negated = new ArrayList<>();
         Set<PermissionAttachmentInfo> attachments = new HashSet<>();
@@ -350,6 +431,6 @@ public class DisguisePermissionsTest {
             attachments.add(new PermissionAttachmentInfo(permissible, perm, null, setTrue));
         });
 
-        return new DisguisePermissions(permissible, commandName);
+        return permissible;
     }
 }
@@ -0,0 +1,160 @@
+package me.libraryaddict.disguise.utilities.parser;
+
+import com.google.gson.internal.UnsafeAllocator;
+import me.libraryaddict.disguise.disguisetypes.Disguise;
+import me.libraryaddict.disguise.disguisetypes.DisguiseType;
+import me.libraryaddict.disguise.utilities.DisguiseTestSetup;
+import me.libraryaddict.disguise.utilities.DisguiseUtilities;
+import org.bukkit.Bukkit;
+import org.bukkit.command.CommandSender;
+import org.bukkit.entity.Entity;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class DisguiseTemplateTest {
+    /**
+     * Disguises need the plugin to be created, so this is made without calling its constructor
+     */
+    private static class StubDisguise extends Disguise {
+        private StubDisguise parsedFrom;
+
+        private StubDisguise() {
+            super(DisguiseType.COW);
+        }
+
+        private static StubDisguise create() {
+            try {
+                return UnsafeAllocator.create().newInstance(StubDisguise.class);
+            } catch (Exception ex) {
+                throw new IllegalStateException(ex);
+            }
+        }
+
+        @Override
+        public double getHeight() {
+            return 0;
+        }
+
+        @Override
+        public Disguise clone() {
+            StubDisguise disguise = create();
+            disguise.parsedFrom = this;
+
+            return disguise;
+        }
+    }
+
+    private Entity createEntity(String name, String customName) {
+        return (Entity) Proxy
+                .newProxyInstance(getClass().getClassLoader(), new Class[]{Entity.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "getName":
+                            return name;
+                        case "getCustomName":
+                            return customName;
+                        default:
+                            return null;
+                    }
+                });
+    }
+
+    @Test
+    public void testPlaceholders() {
+        TargetPlaceholders none = new TargetPlaceholders(DisguiseUtilities.split("cow setBaby setCustomName %name%"));
+
+        Assert.assertEquals("", none.getKey(createEntity("Cow", null)));
+        Assert.assertEquals("", none.getKey(null));
+
+        TargetPlaceholders placeholders =
+                new TargetPlaceholders(new String[]{"player", "%target-skin%", "setCustomName", "Hi %target-name%"});
+
+        // In the order they're replaced, not the order they're used
+        Assert.assertEquals("Cow\0{}\0", placeholders.getKey(createEntity("Cow", null)));
+        Assert.assertEquals("Bob\0{}\0", placeholders.getKey(createEntity("Cow", "Bob")));
+        Assert.assertEquals("??\0??\0", placeholders.getKey(null));
+
+        Assert.assertEquals(placeholders.getKey(createEntity("Cow", "Bob")),
+                placeholders.getKey(createEntity("Pig", "Bob")));
+        Assert.assertNotEquals(placeholders.getKey(createEntity("Cow", null)),
+                placeholders.getKey(createEntity("Pig", null)));
+    }
+
+    /**
+     * A target is only parsed for again when the placeholders would be replaced with something different
+     */
+    @Test
+    public void testTemplateReused() throws Exception {
+        AtomicInteger parses = new AtomicInteger();
+        DisguiseTemplate.Parser parser = target -> {
+            parses.incrementAndGet();
+
+            return StubDisguise.create();
+        };
+
+        DisguiseTemplate template = new DisguiseTemplate(new String[]{"player", "%target-name%"}, null, parser);
+
+        StubDisguise first = (StubDisguise) template.create(createEntity("Cow", null));
+        StubDisguise second = (StubDisguise) template.create(createEntity("Cow", null));
+
+        Assert.assertEquals(1, parses.get());
+        Assert.assertNotSame(first, second);
+        Assert.assertNotNull(first.parsedFrom);
+        Assert.assertSame(first.parsedFrom, second.parsedFrom);
+
+        StubDisguise third = (StubDisguise) template.create(createEntity("Pig", null));
+
+        Assert.assertEquals(2, parses.get());
+        Assert.assertNotSame(first.parsedFrom, third.parsedFrom);
+
+        // Without placeholders, every target gets the same disguise
+        parses.set(0);
+        template = new DisguiseTemplate(new String[]{"cow", "setBaby"}, null, parser);
+
+        first = (StubDisguise) template.create(createEntity("Cow", null));
+        second = (StubDisguise) template.create(createEntity("Pig", "Bob"));
+
+        Assert.assertEquals(1, parses.get());
+        Assert.assertSame(first.parsedFrom, second.parsedFrom);
+    }
+
+    /**
+     * A disguise from a template should be the same as parsing it for that entity, and not share anything that can
+     * be changed with the other disguises from that template
+     */
+    @Test
+    public void testTemplateSameAsParsed() throws Exception {
+        DisguiseTestSetup.assumeInitialized();
+
+        CommandSender sender = Bukkit.getConsoleSender();
+        DisguisePermissions permissions = DisguiseParser.getPermissions(sender, "disguise");
+
+        String[] disguises = new String[]{"cow setBaby setBurning setCustomName Cow setCustomNameVisible",
+                "zombie setItemInMainHand diamond_sword setGlowing setSprinting",
+                "sheep setColor red setSheared setInvisible setUpsideDown",
+                "falling_block setBlock stone setGridLocked",
+                "player libraryaddict setSneaking setItemInOffHand shield setCustomName Player"};
+
+        for (String toParse : disguises) {
+            String[] args = DisguiseUtilities.split(toParse);
+            DisguiseTemplate template = DisguiseTemplate.compile(sender, "disguise", args, permissions);
+
+            Disguise parsed = DisguiseParser.parseDisguise(sender, null, "disguise", args.clone(), permissions);
+            Disguise first = template.create(null);
+            Disguise second = template.create(null);
+
+            Assert.assertNotSame(first, second);
+            Assert.assertNotSame(first.getWatcher(), second.getWatcher());
+
+            Assert.assertEquals(toParse, DisguiseParser.parseToString(parsed), DisguiseParser.parseToString(first));
+            Assert.assertEquals(toParse, DisguiseParser.parseToString(parsed), DisguiseParser.parseToString(second));
+
+            if (first.getWatcher().getItemInMainHand() != null) {
+                Assert.assertNotSame(first.getWatcher().getItemInMainHand(),
+                        second.getWatcher().getItemInMainHand());
+            }
+        }
+    }
+}
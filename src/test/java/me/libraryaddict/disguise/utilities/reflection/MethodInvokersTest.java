@@ -0,0 +1,129 @@
+package me.libraryaddict.disguise.utilities.reflection;
+
+import me.libraryaddict.disguise.disguisetypes.Disguise;
+import me.libraryaddict.disguise.utilities.DisguiseTestSetup;
+import me.libraryaddict.disguise.utilities.parser.DisguiseParser;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.lang.reflect.Method;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+public class MethodInvokersTest {
+    public static class TestWatcher {
+        private boolean burning;
+        private int age;
+        private String name;
+
+        public boolean isBurning() {
+            return burning;
+        }
+
+        public void setBurning(boolean burning) {
+            this.burning = burning;
+        }
+
+        public int getAge() {
+            return age;
+        }
+
+        public void setAge(int age) {
+            if (age < 0) {
+                throw new IllegalArgumentException("Age can't be negative");
+            }
+
+            this.age = age;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+    }
+
+    public static class ChildWatcher extends TestWatcher {
+    }
+
+    @Test
+    public void testInvokers() throws NoSuchMethodException {
+        TestWatcher watcher = new ChildWatcher();
+
+        MethodInvokers.getSetter(TestWatcher.class.getMethod("setBurning", boolean.class)).accept(watcher, true);
+        MethodInvokers.getSetter(TestWatcher.class.getMethod("setAge", int.class)).accept(watcher, 5);
+        MethodInvokers.getSetter(TestWatcher.class.getMethod("setName", String.class)).accept(watcher, "Name");
+
+        Assert.assertEquals(true, MethodInvokers.getGetter(TestWatcher.class.getMethod("isBurning")).apply(watcher));
+        Assert.assertEquals(5, MethodInvokers.getGetter(TestWatcher.class.getMethod("getAge")).apply(watcher));
+        Assert.assertEquals("Name", MethodInvokers.getGetter(TestWatcher.class.getMethod("getName")).apply(watcher));
+
+        Assert.assertSame("The setter should be reused",
+                MethodInvokers.getSetter(TestWatcher.class.getMethod("setAge", int.class)),
+                MethodInvokers.getSetter(TestWatcher.class.getMethod("setAge", int.class)));
+
+        try {
+            MethodInvokers.getSetter(TestWatcher.class.getMethod("setAge", int.class)).accept(watcher, -1);
+
+            Assert.fail("The exception should have been thrown");
+        } catch (IllegalArgumentException ex) {
+            Assert.assertEquals("Age can't be negative", ex.getMessage());
+        }
+    }
+
+    /**
+     * The invokers should behave the same as calling the methods through reflection
+     */
+    @Test
+    public void testInvokersMatchReflection() throws Exception {
+        TestWatcher reflected = new TestWatcher();
+        TestWatcher invoked = new TestWatcher();
+        Method setMethod = TestWatcher.class.getMethod("setAge", int.class);
+        Method getMethod = TestWatcher.class.getMethod("getAge");
+        BiConsumer<Object, Object> setter = MethodInvokers.getSetter(setMethod);
+        Function<Object, Object> getter = MethodInvokers.getGetter(getMethod);
+
+        for (int i = 0; i < 1000; i++) {
+            setMethod.invoke(reflected, i);
+            setter.accept(invoked, i);
+
+            Assert.assertEquals(getMethod.invoke(reflected), getter.apply(invoked));
+        }
+    }
+
+    /**
+     * Parsing runs the real watcher setters through the invokers, and turning it back into a string runs the getters
+     */
+    @Test
+    public void testParseSpeed() throws Exception {
+        DisguiseTestSetup.assumeInitialized();
+
+        String[] disguises = new String[]{"cow setBaby setBurning setCustomName Cow setCustomNameVisible",
+                "zombie setItemInMainHand diamond_sword setGlowing setSprinting",
+                "sheep setColor red setSheared setInvisible setUpsideDown",
+                "player libraryaddict setSneaking setItemInOffHand shield setCustomName Player"};
+
+        for (String toParse : disguises) {
+            String parsed = DisguiseParser.parseToString(DisguiseParser.parseDisguise(toParse));
+
+            Assert.assertNotNull(toParse, parsed);
+            Assert.assertEquals(toParse, parsed, DisguiseParser.parseToString(DisguiseParser.parseDisguise(parsed)));
+        }
+
+        int runs = 10_000;
+
+        long started = System.nanoTime();
+
+        for (int i = 0; i < runs; i++) {
+            Disguise disguise = DisguiseParser.parseDisguise(disguises[i % disguises.length]);
+
+            Assert.assertNotNull(DisguiseParser.parseToString(disguise));
+        }
+
+        long took = System.nanoTime() - started;
+
+        System.out.println("Parsed and serialized " + runs + " disguises in " + (took / 1_000_000) + "ms");
+    }
+}
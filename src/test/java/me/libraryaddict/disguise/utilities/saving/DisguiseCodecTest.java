@@ -0,0 +1,241 @@
+package me.libraryaddict.disguise.utilities.saving;
+
+import com.google.gson.JsonObject;
+import me.libraryaddict.disguise.disguisetypes.*;
+import me.libraryaddict.disguise.disguisetypes.watchers.FallingBlockWatcher;
+import me.libraryaddict.disguise.disguisetypes.watchers.LivingWatcher;
+import me.libraryaddict.disguise.disguisetypes.watchers.PaintingWatcher;
+import me.libraryaddict.disguise.disguisetypes.watchers.SplashPotionWatcher;
+import me.libraryaddict.disguise.utilities.DisguiseTestSetup;
+import me.libraryaddict.disguise.utilities.DisguiseUtilities;
+import me.libraryaddict.disguise.utilities.reflection.ReflectionManager;
+import org.bukkit.Art;
+import org.bukkit.ChatColor;
+import org.bukkit.Material;
+import org.bukkit.inventory.ItemStack;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.Objects;
+import java.util.Set;
+
+public class DisguiseCodecTest {
+    @Test
+    public void testVarInts() throws IOException {
+        int[] ints = {0, 1, 127, 128, 300, Integer.MAX_VALUE, -1, Integer.MIN_VALUE};
+        long[] longs = {0, 1, 1L << 40, Long.MAX_VALUE, -1, Long.MIN_VALUE};
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream output = new DataOutputStream(bytes);
+
+        for (int i : ints) {
+            DisguiseCodec.writeVarInt(output, i);
+            DisguiseCodec.writeVarInt(output, DisguiseCodec.zigZag(i));
+        }
+
+        for (long l : longs) {
+            DisguiseCodec.writeVarLong(output, l);
+        }
+
+        DisguiseCodec.writeString(output, null);
+        DisguiseCodec.writeString(output, "");
+        DisguiseCodec.writeString(output, "Lib's Disguises \u00A7c\u2603");
+
+        DataInputStream input = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+
+        for (int i : ints) {
+            Assert.assertEquals(i, DisguiseCodec.readVarInt(input));
+            Assert.assertEquals(i, DisguiseCodec.unZigZag(DisguiseCodec.readVarInt(input)));
+        }
+
+        for (long l : longs) {
+            Assert.assertEquals(l, DisguiseCodec.readVarLong(input));
+        }
+
+        Assert.assertNull(DisguiseCodec.readString(input));
+        Assert.assertEquals("", DisguiseCodec.readString(input));
+        Assert.assertEquals("Lib's Disguises \u00A7c\u2603", DisguiseCodec.readString(input));
+        Assert.assertEquals(0, input.available());
+
+        // Small negative numbers are kept small
+        Assert.assertEquals(1, DisguiseCodec.zigZag(-1));
+        Assert.assertEquals(2, DisguiseCodec.zigZag(1));
+    }
+
+    /**
+     * If a field is added to a disguise and not the codec, it would silently not be saved
+     */
+    @Test
+    public void testAllFieldsKnown() {
+        Set<Class> classes = new LinkedHashSet<>(
+                Arrays.asList(Disguise.class, TargetedDisguise.class, PlayerDisguise.class, MobDisguise.class,
+                        MiscDisguise.class, ModdedDisguise.class, FlagWatcher.class, LibsEquipment.class));
+
+        for (DisguiseType type : DisguiseType.values()) {
+            if (type.getEntityType() == null) {
+                continue;
+            }
+
+            for (Class c = ReflectionManager.getFlagWatcher(type); c != FlagWatcher.class; c = c.getSuperclass()) {
+                classes.add(c);
+            }
+        }
+
+        for (Class c : classes) {
+            for (Field field : c.getDeclaredFields()) {
+                if (Modifier.isStatic(field.getModifiers()) || Modifier.isTransient(field.getModifiers())) {
+                    continue;
+                }
+
+                Assert.assertTrue(c.getSimpleName() + "." + field.getName() + " is not handled by DisguiseCodec",
+                        DisguiseCodec.isKnownField(field));
+            }
+        }
+    }
+
+    /**
+     * The fields added by the watcher subclasses have to survive being saved, not just the FlagWatcher ones
+     */
+    @Test
+    public void testWatcherRoundTrip() throws Exception {
+        LivingWatcher living = new LivingWatcher(null);
+        setField(living, LivingWatcher.class, "maxHealth", 40D);
+        setField(living, LivingWatcher.class, "maxHealthSet", true);
+        ((Set<String>) getField(living, LivingWatcher.class, "potionEffects")).add("SPEED");
+        setField(living, FlagWatcher.class, "upsideDown", true);
+        setField(living, FlagWatcher.class, "glowColor", ChatColor.RED);
+        setField(living, FlagWatcher.class, "pitchLock", 10F);
+
+        FallingBlockWatcher fallingBlock = new FallingBlockWatcher(null);
+        // Comparing items needs a server
+        setField(fallingBlock, FallingBlockWatcher.class, "block", null);
+        setField(fallingBlock, FallingBlockWatcher.class, "gridLocked", true);
+
+        PaintingWatcher painting = new PaintingWatcher(null);
+        setField(painting, PaintingWatcher.class, "painting", Art.SKULL_AND_ROSES);
+
+        SplashPotionWatcher splashPotion = new SplashPotionWatcher(null);
+        setField(splashPotion, SplashPotionWatcher.class, "potionId", 5);
+
+        FlagWatcher[] watchers = {living, fallingBlock, painting, splashPotion};
+        DisguiseType[] types = {DisguiseType.ZOMBIE, DisguiseType.FALLING_BLOCK, DisguiseType.PAINTING,
+                DisguiseType.SPLASH_POTION};
+
+        for (int i = 0; i < watchers.length; i++) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DisguiseCodec.writeWatcher(new DataOutputStream(bytes), types[i], watchers[i]);
+
+            FlagWatcher read = DisguiseCodec
+                    .readWatcher(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())), types[i], null);
+
+            Assert.assertSame(watchers[i].getClass(), read.getClass());
+
+            for (Class c = read.getClass(); c != Object.class; c = c.getSuperclass()) {
+                for (Field field : c.getDeclaredFields()) {
+                    if (Modifier.isStatic(field.getModifiers()) || Modifier.isTransient(field.getModifiers()) ||
+                            field.getType() == LibsEquipment.class) {
+                        continue;
+                    }
+
+                    field.setAccessible(true);
+
+                    Assert.assertTrue(c.getSimpleName() + "." + field.getName() + " was not read back",
+                            Objects.deepEquals(field.get(watchers[i]), field.get(read)));
+                }
+            }
+        }
+    }
+
+    private void setField(Object owner, Class c, String name, Object value) throws ReflectiveOperationException {
+        Field field = c.getDeclaredField(name);
+        field.setAccessible(true);
+        field.set(owner, value);
+    }
+
+    private Object getField(Object owner, Class c, String name) throws ReflectiveOperationException {
+        Field field = c.getDeclaredField(name);
+        field.setAccessible(true);
+
+        return field.get(owner);
+    }
+
+    /**
+     * Every disguise type has to be readable again, so the watcher the codec creates must have the constructor it uses
+     */
+    @Test
+    public void testEveryTypeReadable() throws ReflectiveOperationException {
+        for (DisguiseType type : DisguiseType.values()) {
+            if (type.getEntityType() == null) {
+                continue;
+            }
+
+            Class<? extends FlagWatcher> watcherClass = ReflectionManager.getFlagWatcher(type);
+
+            Assert.assertNotNull(type + " has no watcher", watcherClass);
+            Assert.assertEquals(type + " watcher can't be found by name", watcherClass,
+                    Class.forName(watcherClass.getName(), false, getClass().getClassLoader())
+                            .asSubclass(FlagWatcher.class));
+            Assert.assertNotNull(watcherClass.getConstructor(Disguise.class));
+        }
+    }
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        DisguiseTestSetup.assumeInitialized();
+
+        int encodedSize = 0;
+        int gsonSize = 0;
+
+        for (DisguiseType type : DisguiseType.values()) {
+            if (type.isCustom() || type.getEntityType() == null) {
+                continue;
+            }
+
+            Disguise disguise;
+
+            if (type.isPlayer()) {
+                disguise = new PlayerDisguise("libraryaddict");
+            } else if (type.isMob()) {
+                disguise = new MobDisguise(type);
+            } else {
+                disguise = new MiscDisguise(type);
+            }
+
+            disguise.getWatcher().setCustomName("Codec Test");
+            disguise.getWatcher().setGlowing(true);
+            disguise.getWatcher().setGlowColor(ChatColor.RED);
+            disguise.getWatcher().setItemInMainHand(new ItemStack(Material.DIAMOND_SWORD));
+            disguise.addCustomData("Test", "Value");
+
+            byte[] encoded = DisguiseCodec.encode(new Disguise[]{disguise});
+            Disguise[] decoded = DisguiseCodec.decode(encoded);
+
+            encodedSize += encoded.length;
+            gsonSize += DisguiseUtilities.getGson().toJson(new Disguise[]{disguise}).getBytes(StandardCharsets.UTF_8)
+                    .length;
+
+            Assert.assertEquals(1, decoded.length);
+
+            JsonObject original = DisguiseUtilities.getGson().toJsonTree(disguise).getAsJsonObject();
+            JsonObject read = DisguiseUtilities.getGson().toJsonTree(decoded[0]).getAsJsonObject();
+
+            // Every disguise has its own boss bar
+            original.remove("bossBar");
+            read.remove("bossBar");
+
+            Assert.assertEquals(type + " did not survive being encoded", original, read);
+        }
+
+        System.out.println("Encoded every disguise in " + encodedSize + " bytes, gson used " + gsonSize + " bytes");
+    }
+}